@@ -0,0 +1,112 @@
+/**
+ * Counts a stream of words approximately in a fixed amount of memory, for
+ * inputs too large for an exact WordCountMap. It combines
+ *   a CountMinSketch for the frequency of any word,
+ *   a HyperLogLog for the number of distinct words, and
+ *   a small HeavyHitters heap of the words with the highest sketch
+ *   estimates, which feeds the top-N list.
+ * Only the heap holds words, so memory stays fixed however many distinct
+ * words the stream has.
+ */
+public class ApproximateCounter {
+    // rough cost of one word in the heap: the String, its HashMap entry and its slots
+    private static final int BYTES_PER_TRACKED_WORD = 128;
+
+    private final CountMinSketch sketch;
+    private final HyperLogLog distinct;
+    private final HeavyHitters top;
+
+    /**
+     * @param sketch the frequency sketch to count into
+     * @param distinct the distinct-word estimator to count into
+     * @param top the heap of the most frequent words
+     */
+    public ApproximateCounter(CountMinSketch sketch, HyperLogLog distinct, HeavyHitters top) {
+        this.sketch = sketch;
+        this.distinct = distinct;
+        this.top = top;
+    }
+
+    /**
+     * Splits a memory budget between the three parts: about 1/16 for HyperLogLog
+     * registers, 1/8 for tracked words and the rest for a sketch of depth 4
+     * (so estimates are within the error bound 98% of the time).
+     *
+     * @param bytes the memory to use, at least 16 KB
+     * @return an empty counter using about that much memory
+     */
+    public static ApproximateCounter withMemory(long bytes) {
+        if (bytes < 1 << 14) {
+            throw new IllegalArgumentException("approximate counting needs at least 16 KB: " + bytes);
+        }
+        int precision = Math.min(18, 63 - Long.numberOfLeadingZeros(bytes / 16));
+        int tracked = (int) Math.min(1 << 20, bytes / 8 / BYTES_PER_TRACKED_WORD);
+        int depth = 4;
+        long rest = bytes - (1L << precision) - (long) tracked * BYTES_PER_TRACKED_WORD;
+        int width = (int) Math.min(Integer.MAX_VALUE / depth, rest / 4 / depth);
+        return new ApproximateCounter(new CountMinSketch(width, depth), new HyperLogLog(precision),
+                new HeavyHitters(tracked));
+    }
+
+    /**
+     * Counts one occurrence of word.
+     *
+     * @param word the next word of the stream
+     */
+    public void offer(String word) {
+        long hash = CountMinSketch.hash(word);
+        distinct.add(hash);
+        top.offer(word, sketch.add(hash));
+    }
+
+    /**
+     * @param word a word of the stream
+     * @return the estimated count of word, never too low
+     */
+    public int estimate(String word) {
+        return sketch.estimate(word);
+    }
+
+    /**
+     * @return the estimated number of distinct words
+     */
+    public long distinctWords() {
+        return distinct.estimate();
+    }
+
+    /**
+     * @return the number of words counted
+     */
+    public long totalWords() {
+        return sketch.total();
+    }
+
+    /**
+     * @return the number of words in the heap
+     */
+    public int tracked() {
+        return top.size();
+    }
+
+    /**
+     * Copies the tracked words, with their estimated counts, into a map, so
+     * the usual listings and the cloud can be made from them.
+     *
+     * @return a map holding every tracked word
+     */
+    public WordCountMap toWordCountMap() {
+        return top.toWordCountMap();
+    }
+
+    /**
+     * @return a one-line summary of the estimates and their error bounds
+     */
+    public String report() {
+        long maxError = (long) Math.ceil(sketch.epsilon() * sketch.total());
+        return String.format("approximate: %d words, ~%d distinct (+/- %.1f%%), counts at most %d too high"
+                        + " (%.0f%% confidence), %d words tracked, %d KB",
+                sketch.total(), distinct.estimate(), 100 * distinct.standardError(), maxError,
+                100 * sketch.confidence(), top.size(),
+                (sketch.bytes() + distinct.bytes() + (long) top.capacity() * BYTES_PER_TRACKED_WORD) / 1024);
+    }
+}
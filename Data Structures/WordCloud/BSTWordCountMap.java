@@ -0,0 +1,340 @@
+import java.lang.reflect.Array;
+import java.util.*;
+import java.lang.*;
+import java.io.*;
+import java.util.function.ObjIntConsumer;
+/**
+ * A WordCountMap that includes a BST and a methods that can visit that BST in a certain order
+ * and store that traversal in an array.
+ * @author Eric Alexander
+ * @author Joey Cook
+ * @author Paul Reich
+ */
+public class BSTWordCountMap implements WordCountMap {
+    // root of BST
+    private BSTNode root;
+    // number of words in the BST
+    private int size;
+    private class BSTNode {
+        // BSTNode's word, count as well as its left and right nodes
+        private String word;
+        private int count;
+        private BSTNode left;
+        private BSTNode right;
+        /**
+         * gives access to a BSTNode's word and or count
+         * @param word the BSTNode's word
+         * @param count the BSTNode's count
+         */
+        public BSTNode(String word, int count) {
+            this.word = word;
+            this.count = count;
+            left = null;
+            right = null;
+        }
+        /**
+         * method to convert node to string
+         */
+        public String toString() {
+            return String.format("{%s -> %s}", word, count);
+        }
+    }
+    /**
+     * sets BSTWordCountMap's root to null
+     */
+    public BSTWordCountMap() {
+        root = null;
+        size = 0;
+    }
+
+    /**
+     * Insert given word-count pair.
+     * If word is already in the tree, replace its count.
+     *
+     * @param word the word to be inserted
+     * @param count the count to be associated with word
+     */
+    public void insert(String word , int count) {
+        root = insert(root, word, count);
+    }
+
+    /**
+     * Helper method to insert()
+     * Inserts given word-count pair to tree
+     * rooted at given node.
+     *
+     * @param n root of subtree to be inserted into
+     * @param word the word to be inserted
+     * @param count count to be associated with word
+     * @return the new root of the given subtree
+     */
+    private BSTNode insert(BSTNode n, String word, int count) {
+        if (n == null) {
+            size++;
+            return new BSTNode(word, count);
+        } else if (word.compareTo(n.word) < 0) {
+            n.left = insert(n.left, word, count);
+            return n;
+        } else if (word.compareTo(n.word) > 0) {
+            n.right = insert(n.right, word, count);
+            return n;
+        } else {
+            n.count = count;
+            return n;
+        }
+    }
+
+    /**
+     * Retrieve the count associated with given word
+     * (or null if it isn't present).
+     *
+     * @param word the word to be looked up
+     * @return the count associated with word
+     */
+    public int lookup(String word) {
+        return lookup(root, word);
+    }
+
+    /**
+     * Helper method to lookup().
+     * Looks up word within subtree rooted at given node.
+     *
+     * @param n the root of the subtree to be searched
+     * @param word the word to be looked up
+     * @return the count associated with word
+     */
+    private int lookup(BSTNode n, String word) {
+        if (n == null) {
+            return 0;
+        } else if (word.compareTo(n.word) < 0) {
+            return lookup(n.left, word);
+        } else if (word.compareTo(n.word) > 0) {
+            return lookup(n.right, word);
+        } else {
+            return n.count;
+        }
+    }
+
+
+
+    /**
+     * Removes word and its count from the BST.
+     *
+     * @param word the word to be removed
+     * @return the count word had, or 0 if it wasn't in the BST
+     */
+    public int remove(String word) {
+        BSTNode found = find(root, word);
+        if (found == null) {
+            return 0;
+        }
+        int count = found.count;
+        root = delete(root, word);
+        size--;
+        return count;
+    }
+
+    /**
+     * Helper method to remove().
+     *
+     * @param n the root of the subtree to be searched
+     * @param word the word to look for
+     * @return the node holding word, or null if it isn't in the subtree
+     */
+    private BSTNode find(BSTNode n, String word) {
+        while (n != null) {
+            int cmp = word.compareTo(n.word);
+            if (cmp == 0) {
+                return n;
+            }
+            n = cmp < 0 ? n.left : n.right;
+        }
+        return null;
+    }
+
+    /**
+     * Helper method to remove().
+     * Deletes word from the subtree rooted at given node. A node with two
+     * children is replaced by the smallest node of its right subtree.
+     *
+     * @param n the root of the subtree, which must contain word
+     * @param word the word to be deleted
+     * @return the new root of the given subtree
+     */
+    private BSTNode delete(BSTNode n, String word) {
+        int cmp = word.compareTo(n.word);
+        if (cmp < 0) {
+            n.left = delete(n.left, word);
+            return n;
+        } else if (cmp > 0) {
+            n.right = delete(n.right, word);
+            return n;
+        } else if (n.left == null) {
+            return n.right;
+        } else if (n.right == null) {
+            return n.left;
+        } else {
+            BSTNode successor = smallest(n.right);
+            n.word = successor.word;
+            n.count = successor.count;
+            n.right = deleteSmallest(n.right);
+            return n;
+        }
+    }
+
+    /**
+     * Helper method for delete().
+     * Removes the node with the smallest word from the given subtree.
+     *
+     * @param n the root of the subtree
+     * @return the new root of the given subtree
+     */
+    private BSTNode deleteSmallest(BSTNode n) {
+        if (n.left == null) {
+            return n.right;
+        }
+        n.left = deleteSmallest(n.left);
+        return n;
+    }
+
+    /**
+     * Helper method for delete().
+     * Returns node in given subtree with smallest word.
+     *
+     * @param n the root of the subtree
+     * @return the node with the smallest word
+     */
+    private BSTNode smallest(BSTNode n) {
+        if (n.left == null) {
+            return n;
+        } else {
+            return smallest(n.left);
+        }
+    }
+
+
+
+
+
+    /**
+     * Adds delta to the count of the specified word. If the word is not in
+     * this WordCountMap yet, it is added with a count of delta.
+     * Walks down the tree once, comparing the word once per node.
+     *
+     * @param word the given word that will be either inserted or have its count increased
+     * @param delta the amount to add to the word's count
+     * @return the word's new count
+     */
+    public int add(String word, int delta) {
+        if (root == null) {
+            size++;
+            root = new BSTNode(word, delta);
+            return delta;
+        }
+        BSTNode n = root;
+        while (true) {
+            int cmp = word.compareTo(n.word);
+            if (cmp < 0) {
+                // search left subtree, hanging a new node off the end if the word is missing
+                if (n.left == null) {
+                    size++;
+                    n.left = new BSTNode(word, delta);
+                    return delta;
+                }
+                n = n.left;
+            } else if (cmp > 0) {
+                // search right subtree
+                if (n.right == null) {
+                    size++;
+                    n.right = new BSTNode(word, delta);
+                    return delta;
+                }
+                n = n.right;
+            } else {
+                // word is present, so just bump its count
+                n.count += delta;
+                return n.count;
+            }
+        }
+    }
+
+    /**
+     * Adds every count in other to this map in O(n + m): the two alphabetical
+     * sequences are merged and the BST is rebuilt perfectly balanced from the result.
+     *
+     * @param other the counts to merge in (unchanged)
+     */
+    public void merge(WordCountMap other) {
+        SortedWordCountMap merged = SortedWordCountMap.merge(this, other);
+        root = build(merged, 0, merged.size());
+        size = merged.size();
+    }
+
+    /**
+     * Helper method to merge(): builds a balanced BST from the sorted words merged[lo, hi)
+     * by making the middle word the root.
+     *
+     * @return the root of the new subtree
+     */
+    private BSTNode build(SortedWordCountMap merged, int lo, int hi) {
+        if (lo >= hi) {
+            return null;
+        }
+        int mid = (lo + hi) >>> 1;
+        BSTNode n = new BSTNode(merged.word(mid), merged.count(mid));
+        n.left = build(merged, lo, mid);
+        n.right = build(merged, mid + 1, hi);
+        return n;
+    }
+
+    /**
+     * Returns the number of distinct words in the BST.
+     *
+     * @return the number of words
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Visits every word in alphabetical order. Uses an explicit stack
+     * instead of recursion, since the BST can be as deep as it has words.
+     *
+     * @param action receives each word and its count
+     */
+    public void forEachWord(ObjIntConsumer<String> action) {
+        ArrayDeque<BSTNode> stack = new ArrayDeque<>();
+        BSTNode n = root;
+        while (n != null || !stack.isEmpty()) {
+            // go as far left as possible, then visit and step right
+            while (n != null) {
+                stack.push(n);
+                n = n.left;
+            }
+            n = stack.pop();
+            action.accept(n.word, n.count);
+            n = n.right;
+        }
+    }
+
+    /**
+     * Returns a list of WordCount objects myWordCountArray, one per word stored in this
+     * BSTWordCountMap, sorted alphabetically by word. Works on an empty map too.
+     * @return returns an ArrayList of WordCount objects
+     */
+    public ArrayList<WordCount> getWordCountsByWord() {
+        ArrayList<WordCount> myWordCountArray = new ArrayList<WordCount>(size);
+        forEachWord((word, count) -> myWordCountArray.add(new WordCount(word, count)));
+        return myWordCountArray;
+    }
+
+    /**
+     * Returns a lazy Spliterator that walks the BST in alphabetical order.
+     *
+     * @return a Spliterator over the words of this map
+     */
+    public Spliterator<WordCount> spliterator() {
+        return new TreeSpliterator<BSTNode>(root, size, n -> n.left, n -> n.right,
+                n -> new WordCount(n.word, n.count));
+    }
+}
@@ -0,0 +1,128 @@
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+/**
+ * Makes a word cloud for every file of an archive. Each file goes through
+ * load, count, top-N and WordCloudMaker on a fixed-size pool of worker threads,
+ * and all of them share one parsed stop list. The cloud for dir/name.txt (or
+ * dir/name.txt.gz) is written to dir/name.html. Timings are printed per file, followed by the
+ * total throughput. A file that can't be read, or whose cloud can't be written, is
+ * reported and left out, and the rest of the batch carries on.
+ */
+public class BatchCloudMaker {
+    private final StopWords stopWords;
+    private final String backend;
+    private final boolean mapped;
+    private final int threads;
+
+    /**
+     * @param stopWords the stop list shared by every file
+     * @param backend the kind of WordCountMap to count each file in (see WordCountMap.create)
+     * @param mapped true to read files through the memory-mapped byte path
+     * @param threads the number of files to work on at once
+     */
+    public BatchCloudMaker(StopWords stopWords, String backend, boolean mapped, int threads) {
+        this.stopWords = stopWords;
+        this.backend = backend;
+        this.mapped = mapped;
+        this.threads = threads;
+    }
+
+    /**
+     * Turns a list of files and directories into the list of files to process;
+     * a directory stands for every .txt and .txt.gz file directly inside it.
+     *
+     * @param names file and directory names
+     * @return the files, directories expanded in alphabetical order
+     */
+    public static List<String> expand(List<String> names) {
+        ArrayList<String> files = new ArrayList<>();
+        for (String name : names) {
+            File file = new File(name);
+            File[] children = file.listFiles((dir, child) -> child.endsWith(".txt") || child.endsWith(".txt.gz"));
+            if (children == null) {
+                files.add(name);
+            } else {
+                Arrays.sort(children);
+                for (File child : children) {
+                    if (child.isFile()) {
+                        files.add(child.getPath());
+                    }
+                }
+            }
+        }
+        return files;
+    }
+
+    /**
+     * Makes a cloud of the size most frequent words for every file.
+     *
+     * @param fileNames the text files
+     * @param size # of words in each cloud
+     */
+    public void run(List<String> fileNames, int size) {
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        // only the files whose clouds were made count towards the throughput
+        int done = 0;
+        long bytes = 0;
+        try {
+            ArrayList<Future<String>> results = new ArrayList<>();
+            for (String fileName : fileNames) {
+                results.add(pool.submit(() -> makeCloud(fileName, size)));
+            }
+            // reports come out in the order the files were given
+            for (int i = 0; i < results.size(); i++) {
+                try {
+                    System.out.println(results.get(i).get());
+                    done++;
+                    bytes += new File(fileNames.get(i)).length();
+                } catch (ExecutionException e) {
+                    System.err.println(fileNames.get(i) + ": skipped, " + e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        String files = done == fileNames.size() ? done + " files" : done + " of " + fileNames.size() + " files";
+        System.out.printf("%s, %.1f MB in %.2f s (%.1f files/s, %.1f MB/s, %d threads)%n",
+                files, bytes / 1e6, seconds, done / seconds, bytes / 1e6 / seconds, threads);
+    }
+
+    /**
+     * Counts one file and writes its cloud.
+     *
+     * @param fileName the text file
+     * @param size # of words in the cloud
+     * @return a one-line report of what was done and how long it took
+     * @throws IOException if the file can't be read or its cloud can't be written
+     */
+    private String makeCloud(String fileName, int size) throws IOException {
+        long start = System.nanoTime();
+        WordCounter counter = new WordCounter(WordCountMap.create(backend));
+        counter.setStopWords(stopWords);
+        if (mapped) {
+            counter.countMapped(fileName);
+        } else {
+            counter.count(fileName);
+        }
+        long counted = System.nanoTime();
+        ArrayList<WordCount> top = counter.cloudFrequency(size);
+
+        // dir/name.txt becomes dir/name.html, titled "name"
+        String name = new File(fileName).getName();
+        if (name.endsWith(".gz")) {
+            name = name.substring(0, name.length() - 3);
+        }
+        int dot = name.lastIndexOf('.');
+        String title = dot <= 0 ? name : name.substring(0, dot);
+        String htmlName = new File(new File(fileName).getParentFile(), title + ".html").getPath();
+        WordCloudMaker.writeWordCloudFile(title, top, htmlName);
+        long done = System.nanoTime();
+        return String.format("%s: %.1f KB, counted in %.1f ms, cloud in %.1f ms -> %s",
+                fileName, new File(fileName).length() / 1e3, (counted - start) / 1e6, (done - counted) / 1e6, htmlName);
+    }
+}
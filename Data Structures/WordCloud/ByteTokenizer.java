@@ -0,0 +1,123 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+/**
+ * Splits ASCII or UTF-8 text into lowercase words directly on its bytes and
+ * counts them in a ByteWordCountMap. A word is a run of letters a-z or A-Z;
+ * every other byte (including every byte of a multi-byte UTF-8 character) is
+ * a separator. That gives the same words as WordTokenizer, apart from the
+ * few non-ASCII letters that Java lower-cases into a-z.
+ *
+ * Text can be fed in pieces; a word cut in two between pieces is joined up.
+ */
+public class ByteTokenizer {
+    // files are mapped this many bytes at a time, since a single mapping is limited to 2 GB
+    private static final long WINDOW = 1L << 28;
+
+    // FOLD[b & 0xff] is the lowercase letter for byte b, or 0 for a separator
+    static final byte[] FOLD = new byte[256];
+    static {
+        for (int c = 'a'; c <= 'z'; c++) {
+            FOLD[c] = (byte) c;
+            FOLD[c - 'a' + 'A'] = (byte) c;
+        }
+    }
+
+    private final ByteWordCountMap counts;
+    // the word being built, which may continue into the next piece of text
+    private byte[] word = new byte[64];
+    private int length = 0;
+
+    /**
+     * @param counts the map that receives every word
+     */
+    public ByteTokenizer(ByteWordCountMap counts) {
+        this.counts = counts;
+    }
+
+    /**
+     * Memory-maps the file and counts every word in it.
+     *
+     * @param fileName the text file to count
+     * @throws IOException if the file cannot be read
+     */
+    public void tokenizeFile(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += WINDOW) {
+                feed(channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(WINDOW, size - position)));
+            }
+        }
+        finish();
+    }
+
+    /**
+     * Decompresses a gzip file on a separate thread and counts every word in it as
+     * each buffer of inflated bytes arrives.
+     *
+     * @param fileName the .gz file to count
+     * @throws IOException if the file cannot be read or decompressed
+     */
+    public void tokenizeGzip(String fileName) throws IOException {
+        try (GzipPipeline pipeline = new GzipPipeline(fileName)) {
+            ByteBuffer buf;
+            while ((buf = pipeline.take()) != null) {
+                feed(buf);
+                pipeline.release(buf);
+            }
+        }
+        finish();
+    }
+
+    /**
+     * Counts the words in buf[off, off + len).
+     *
+     * @param buf the text
+     * @param off where the text starts
+     * @param len how many bytes to scan
+     */
+    public void feed(byte[] buf, int off, int len) {
+        for (int i = off; i < off + len; i++) {
+            accept(FOLD[buf[i] & 0xff]);
+        }
+    }
+
+    /**
+     * Counts the words between the buffer's position and limit, without moving its position.
+     *
+     * @param buf the text
+     */
+    public void feed(ByteBuffer buf) {
+        int limit = buf.limit();
+        for (int i = buf.position(); i < limit; i++) {
+            accept(FOLD[buf.get(i) & 0xff]);
+        }
+    }
+
+    /**
+     * Counts the last word if the text ended in the middle of one.
+     */
+    public void finish() {
+        accept((byte) 0);
+    }
+
+    /**
+     * Adds a folded byte to the current word, or ends the word on a separator.
+     *
+     * @param c a lowercase letter, or 0 for a separator
+     */
+    private void accept(byte c) {
+        if (c != 0) {
+            if (length == word.length) {
+                byte[] bigger = new byte[word.length * 2];
+                System.arraycopy(word, 0, bigger, 0, length);
+                word = bigger;
+            }
+            word[length++] = c;
+        } else if (length > 0) {
+            counts.increment(word, length);
+            length = 0;
+        }
+    }
+}
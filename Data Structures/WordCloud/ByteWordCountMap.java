@@ -0,0 +1,127 @@
+import java.nio.charset.StandardCharsets;
+/**
+ * Counts words given as raw bytes, for the byte-level input path.
+ * It is an open-addressing hash table like HashWordCountMap, but a word is
+ * looked up by hashing and comparing its bytes, so a String is only created
+ * the first time a word is seen. Repeat words cost no allocation at all.
+ *
+ * Stop words are checked once, when they are first seen, and then stay in the
+ * table marked as stopped so later hits are skipped without another check.
+ */
+public class ByteWordCountMap {
+    // count stored for a stop word
+    private static final int STOP = -1;
+
+    // keys[i] is null for an empty slot; hashes[i] caches the hash of keys[i]
+    private String[] keys;
+    private int[] hashes;
+    private int[] counts;
+    // number of words in the table, including stop words
+    private int size;
+    // capacity - 1, and 32 - log2(capacity), as in HashWordCountMap
+    private int mask;
+    private int shift;
+    private final StopWords stopWords;
+
+    /**
+     * creates an empty table
+     *
+     * @param stopWords words to leave out of the counts, or null to keep every word
+     */
+    public ByteWordCountMap(StopWords stopWords) {
+        this.stopWords = stopWords;
+        keys = new String[1024];
+        hashes = new int[1024];
+        counts = new int[1024];
+        mask = keys.length - 1;
+        shift = Integer.numberOfLeadingZeros(keys.length) + 1;
+        size = 0;
+    }
+
+    /**
+     * Adds one to the count of the word held in word[0, length).
+     * The bytes must already be lowercase ASCII letters.
+     *
+     * @param word buffer holding the word
+     * @param length number of bytes in the word
+     */
+    public void increment(byte[] word, int length) {
+        // same hash as String.hashCode() for the word
+        int h = 0;
+        for (int j = 0; j < length; j++) {
+            h = 31 * h + word[j];
+        }
+        int i = (h * 0x9E3779B9) >>> shift;
+        while (keys[i] != null) {
+            if (hashes[i] == h && matches(keys[i], word, length)) {
+                if (counts[i] != STOP) {
+                    counts[i]++;
+                }
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        // first time this word is seen: this is the only place a String is made
+        String key = new String(word, 0, length, StandardCharsets.ISO_8859_1);
+        keys[i] = key;
+        hashes[i] = h;
+        counts[i] = stopWords != null && stopWords.contains(key) ? STOP : 1;
+        size++;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    /**
+     * @return true if key spells out the bytes word[0, length)
+     */
+    private static boolean matches(String key, byte[] word, int length) {
+        if (key.length() != length) {
+            return false;
+        }
+        for (int j = 0; j < length; j++) {
+            if (key.charAt(j) != word[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Doubles the table, re-using the cached hashes.
+     */
+    private void grow() {
+        String[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldCounts = counts;
+        keys = new String[oldKeys.length * 2];
+        hashes = new int[keys.length];
+        counts = new int[keys.length];
+        mask = keys.length - 1;
+        shift--;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = (oldHashes[j] * 0x9E3779B9) >>> shift;
+                while (keys[i] != null) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                hashes[i] = oldHashes[j];
+                counts[i] = oldCounts[j];
+            }
+        }
+    }
+
+    /**
+     * Adds every counted word (but no stop words) to target, in no particular order.
+     *
+     * @param target the map that receives the counts
+     */
+    public void addTo(WordCountMap target) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null && counts[i] != STOP) {
+                target.add(keys[i], counts[i]);
+            }
+        }
+    }
+}
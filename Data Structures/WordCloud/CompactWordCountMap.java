@@ -0,0 +1,449 @@
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+/**
+ * A WordCountMap for very large vocabularies, laid out in primitive arrays
+ * instead of one node object and one String per word.
+ *
+ * It is the same left-leaning red-black tree as RedBlackWordCountMap, but
+ * node i is described by left[i], right[i], counts[i] and red[i], and its word
+ * is the chars arena[start[i], start[i] + length[i]). All words share the one
+ * char arena. A word costs about 21 bytes plus 2 per letter, against roughly
+ * 70 bytes plus the letters for a node, a String and its backing array.
+ * Strings are only created when words are handed out.
+ *
+ * Removing a word keeps the nodes packed at 0 to size - 1 by moving the last
+ * node into the freed slot. The removed word's letters stay in the arena
+ * until they make up half of it, when the arena is compacted.
+ */
+public class CompactWordCountMap implements WordCountMap {
+    // index used for a missing child
+    private static final int NIL = -1;
+
+    // node arrays, all indexed by node number
+    private int[] left;
+    private int[] right;
+    private int[] counts;
+    private int[] start;
+    private int[] length;
+    private boolean[] red;
+    // the letters of every word, back to back
+    private char[] arena;
+    private int arenaSize;
+    // letters in the arena that belong to removed words
+    private int arenaGarbage;
+    // root node, number of nodes, and the count left behind by the most recent add()
+    private int root;
+    private int size;
+    private int lastCount;
+    // the node taken out of the tree by the most recent delete()
+    private int freed;
+
+    /**
+     * creates an empty map
+     */
+    public CompactWordCountMap() {
+        left = new int[256];
+        right = new int[256];
+        counts = new int[256];
+        start = new int[256];
+        length = new int[256];
+        red = new boolean[256];
+        arena = new char[2048];
+        arenaSize = 0;
+        root = NIL;
+        size = 0;
+    }
+
+    public void insert(String word, int count) {
+        root = add(root, word, count, true);
+        red[root] = false;
+    }
+
+    public int lookup(String word) {
+        int n = root;
+        while (n != NIL) {
+            int cmp = compare(word, n);
+            if (cmp < 0) {
+                n = left[n];
+            } else if (cmp > 0) {
+                n = right[n];
+            } else {
+                return counts[n];
+            }
+        }
+        return 0;
+    }
+
+    public int add(String word, int delta) {
+        root = add(root, word, delta, false);
+        red[root] = false;
+        return lastCount;
+    }
+
+    /**
+     * Helper method to insert() and add(): descends once and rebalances on the way back up.
+     *
+     * @param n root of the subtree
+     * @param word the word to insert or add to
+     * @param count the count to set, or the amount to add
+     * @param replace true to set the count, false to add to it
+     * @return the new root of the subtree
+     */
+    private int add(int n, String word, int count, boolean replace) {
+        if (n == NIL) {
+            lastCount = count;
+            return newNode(word, count);
+        }
+        int cmp = compare(word, n);
+        // the recursive call may grow (replace) the arrays, so store its result afterwards
+        if (cmp < 0) {
+            int child = add(left[n], word, count, replace);
+            left[n] = child;
+        } else if (cmp > 0) {
+            int child = add(right[n], word, count, replace);
+            right[n] = child;
+        } else {
+            counts[n] = replace ? count : counts[n] + count;
+            lastCount = counts[n];
+            return n;
+        }
+        return balance(n);
+    }
+
+    /**
+     * Removes word and its count from the tree, in O(log n), with the same
+     * left-leaning red-black deletion as RedBlackWordCountMap.
+     *
+     * @param word the word to be removed
+     * @return the count word had, or 0 if it wasn't in the tree
+     */
+    public int remove(String word) {
+        int n = root;
+        int cmp;
+        while (n != NIL && (cmp = compare(word, n)) != 0) {
+            n = cmp < 0 ? left[n] : right[n];
+        }
+        if (n == NIL) {
+            return 0;
+        }
+        int count = counts[n];
+        // the root temporarily turns red so the descent can borrow from it
+        if (!isRed(left[root]) && !isRed(right[root])) {
+            red[root] = true;
+        }
+        root = delete(root, word);
+        if (root != NIL) {
+            red[root] = false;
+        }
+        moveLast(freed);
+        size--;
+        arenaGarbage += word.length();
+        if (arenaGarbage > arenaSize / 2) {
+            compactArena();
+        }
+        return count;
+    }
+
+    /**
+     * Helper method to remove().
+     * Deletes word from the subtree rooted at n, pushing red links towards the
+     * word on the way down and rebalancing on the way back up. The node taken
+     * out of the tree is left in freed.
+     *
+     * @param n root of the subtree, which must contain word
+     * @param word the word to be deleted
+     * @return the new root of the given subtree
+     */
+    private int delete(int n, String word) {
+        if (compare(word, n) < 0) {
+            if (!isRed(left[n]) && !isRed(left[left[n]])) {
+                n = moveRedLeft(n);
+            }
+            left[n] = delete(left[n], word);
+        } else {
+            if (isRed(left[n])) {
+                n = rotateRight(n);
+            }
+            if (compare(word, n) == 0 && right[n] == NIL) {
+                freed = n;
+                return NIL;
+            }
+            if (!isRed(right[n]) && !isRed(left[right[n]])) {
+                n = moveRedRight(n);
+            }
+            if (compare(word, n) == 0) {
+                // take the place of the smallest word on the right, and remove that node instead
+                int successor = right[n];
+                while (left[successor] != NIL) {
+                    successor = left[successor];
+                }
+                start[n] = start[successor];
+                length[n] = length[successor];
+                counts[n] = counts[successor];
+                right[n] = deleteSmallest(right[n]);
+            } else {
+                right[n] = delete(right[n], word);
+            }
+        }
+        return balance(n);
+    }
+
+    /**
+     * Helper method to delete(): removes the smallest word of the subtree rooted at n.
+     *
+     * @param n root of the subtree
+     * @return the new root of the given subtree
+     */
+    private int deleteSmallest(int n) {
+        if (left[n] == NIL) {
+            freed = n;
+            return NIL;
+        }
+        if (!isRed(left[n]) && !isRed(left[left[n]])) {
+            n = moveRedLeft(n);
+        }
+        left[n] = deleteSmallest(left[n]);
+        return balance(n);
+    }
+
+    /**
+     * Makes left[n] or one of its children red, when both left[n] and left[left[n]] are black.
+     */
+    private int moveRedLeft(int n) {
+        flipColors(n);
+        if (isRed(left[right[n]])) {
+            right[n] = rotateRight(right[n]);
+            n = rotateLeft(n);
+            flipColors(n);
+        }
+        return n;
+    }
+
+    /**
+     * Makes right[n] or one of its children red, when both right[n] and left[right[n]] are black.
+     */
+    private int moveRedRight(int n) {
+        flipColors(n);
+        if (isRed(left[left[n]])) {
+            n = rotateRight(n);
+            flipColors(n);
+        }
+        return n;
+    }
+
+    /**
+     * Helper method to remove(): moves the last node, size - 1, into the slot of
+     * a node that has left the tree, and points its parent at the new slot.
+     *
+     * @param slot the index of the node that left the tree
+     */
+    private void moveLast(int slot) {
+        int last = size - 1;
+        if (slot == last) {
+            return;
+        }
+        left[slot] = left[last];
+        right[slot] = right[last];
+        counts[slot] = counts[last];
+        start[slot] = start[last];
+        length[slot] = length[last];
+        red[slot] = red[last];
+        if (root == last) {
+            root = slot;
+            return;
+        }
+        // the parent is found by searching for the last node's word
+        int parent = root;
+        while (true) {
+            int cmp = compare(last, parent);
+            int child = cmp < 0 ? left[parent] : right[parent];
+            if (child == last) {
+                if (cmp < 0) {
+                    left[parent] = slot;
+                } else {
+                    right[parent] = slot;
+                }
+                return;
+            }
+            parent = child;
+        }
+    }
+
+    /**
+     * Copies the words of the nodes into a fresh arena, leaving out the letters
+     * of removed words.
+     */
+    private void compactArena() {
+        char[] compacted = new char[arena.length];
+        int used = 0;
+        for (int n = 0; n < size; n++) {
+            System.arraycopy(arena, start[n], compacted, used, length[n]);
+            start[n] = used;
+            used += length[n];
+        }
+        arena = compacted;
+        arenaSize = used;
+        arenaGarbage = 0;
+    }
+
+    /**
+     * Stores a new red node, copying its word into the arena.
+     *
+     * @return the new node's index
+     */
+    private int newNode(String word, int count) {
+        if (size == left.length) {
+            int capacity = size * 2;
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            start = Arrays.copyOf(start, capacity);
+            length = Arrays.copyOf(length, capacity);
+            red = Arrays.copyOf(red, capacity);
+        }
+        if (arenaSize + word.length() > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + word.length()));
+        }
+        word.getChars(0, word.length(), arena, arenaSize);
+        int n = size++;
+        left[n] = NIL;
+        right[n] = NIL;
+        counts[n] = count;
+        start[n] = arenaSize;
+        length[n] = word.length();
+        red[n] = true;
+        arenaSize += word.length();
+        return n;
+    }
+
+    /**
+     * Compares word with node n's word in the arena, the same way String.compareTo does.
+     *
+     * @return negative, zero or positive as word is before, equal to or after n's word
+     */
+    private int compare(String word, int n) {
+        int offset = start[n];
+        int limit = Math.min(word.length(), length[n]);
+        for (int i = 0; i < limit; i++) {
+            char c = word.charAt(i);
+            char d = arena[offset + i];
+            if (c != d) {
+                return c - d;
+            }
+        }
+        return word.length() - length[n];
+    }
+
+    /**
+     * Compares node a's word with node b's word, the same way String.compareTo does.
+     *
+     * @return negative, zero or positive as a's word is before, equal to or after b's word
+     */
+    private int compare(int a, int b) {
+        int limit = Math.min(length[a], length[b]);
+        for (int i = 0; i < limit; i++) {
+            char c = arena[start[a] + i];
+            char d = arena[start[b] + i];
+            if (c != d) {
+                return c - d;
+            }
+        }
+        return length[a] - length[b];
+    }
+
+    /**
+     * @return node n's word as a String
+     */
+    private String word(int n) {
+        return new String(arena, start[n], length[n]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Visits every word in alphabetical order.
+     *
+     * @param action receives each word and its count
+     */
+    public void forEachWord(ObjIntConsumer<String> action) {
+        // the tree's height is at most 2 lg n, so this stack never overflows
+        int[] stack = new int[64];
+        int top = 0;
+        int n = root;
+        while (n != NIL || top > 0) {
+            while (n != NIL) {
+                stack[top++] = n;
+                n = left[n];
+            }
+            n = stack[--top];
+            action.accept(word(n), counts[n]);
+            n = right[n];
+        }
+    }
+
+    public ArrayList<WordCount> getWordCountsByWord() {
+        ArrayList<WordCount> myWordCountArray = new ArrayList<WordCount>(size);
+        forEachWord((word, count) -> myWordCountArray.add(new WordCount(word, count)));
+        return myWordCountArray;
+    }
+
+    /**
+     * Returns a lazy Spliterator that walks the tree in alphabetical order.
+     *
+     * @return a Spliterator over the words of this map
+     */
+    public Spliterator<WordCount> spliterator() {
+        return new TreeSpliterator<Integer>(root == NIL ? null : root, size,
+                n -> left[n] == NIL ? null : left[n],
+                n -> right[n] == NIL ? null : right[n],
+                n -> new WordCount(word(n), counts[n]));
+    }
+
+    /**
+     * Restores the left-leaning red-black invariants at n, as in RedBlackWordCountMap.
+     *
+     * @return the new root of the subtree
+     */
+    private int balance(int n) {
+        if (isRed(right[n]) && !isRed(left[n])) {
+            n = rotateLeft(n);
+        }
+        if (isRed(left[n]) && isRed(left[left[n]])) {
+            n = rotateRight(n);
+        }
+        if (isRed(left[n]) && isRed(right[n])) {
+            flipColors(n);
+        }
+        return n;
+    }
+
+    private void flipColors(int n) {
+        red[n] = !red[n];
+        red[left[n]] = !red[left[n]];
+        red[right[n]] = !red[right[n]];
+    }
+
+    private boolean isRed(int n) {
+        return n != NIL && red[n];
+    }
+
+    private int rotateLeft(int n) {
+        int x = right[n];
+        right[n] = left[x];
+        left[x] = n;
+        red[x] = red[n];
+        red[n] = true;
+        return x;
+    }
+
+    private int rotateRight(int n) {
+        int x = left[n];
+        left[n] = right[x];
+        right[x] = n;
+        red[x] = red[n];
+        red[n] = true;
+        return x;
+    }
+}
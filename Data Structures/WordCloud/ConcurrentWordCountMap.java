@@ -0,0 +1,170 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ObjIntConsumer;
+/**
+ * A thread-safe WordCountMap, so several threads can count words into one
+ * shared vocabulary at the same time.
+ *
+ * Words are kept in a ConcurrentSkipListMap, which stays sorted by word and
+ * needs no global lock, and each count is an AtomicInteger that is bumped
+ * with compare-and-set. Threads only contend when they add to the very same
+ * word at the same moment. Iteration is alphabetical and weakly consistent:
+ * it never throws ConcurrentModificationException and sees some (but maybe
+ * not all) of the updates made while it runs.
+ *
+ * A removed word's counter is set to DEAD before it leaves the skip list, so
+ * a thread still holding that counter sees that it is gone and starts over
+ * with a fresh one instead of counting into a counter nobody will read.
+ */
+public class ConcurrentWordCountMap implements WordCountMap {
+    private final ConcurrentSkipListMap<String, AtomicInteger> counts;
+    // kept separately because ConcurrentSkipListMap.size() walks the whole map
+    private final AtomicInteger size;
+    // the value of a counter whose word has been removed
+    private static final int DEAD = Integer.MIN_VALUE;
+
+    /**
+     * creates an empty map
+     */
+    public ConcurrentWordCountMap() {
+        counts = new ConcurrentSkipListMap<>();
+        size = new AtomicInteger();
+    }
+
+    /**
+     * Returns the counter for word, adding a zero counter if the word is new.
+     *
+     * @param word the word to find
+     * @return the word's counter
+     */
+    private AtomicInteger counter(String word) {
+        AtomicInteger count = counts.get(word);
+        if (count == null) {
+            AtomicInteger fresh = new AtomicInteger();
+            count = counts.putIfAbsent(word, fresh);
+            if (count == null) {
+                // this thread added the word
+                size.incrementAndGet();
+                count = fresh;
+            }
+        }
+        return count;
+    }
+
+    public void insert(String word, int count) {
+        while (true) {
+            AtomicInteger counter = counter(word);
+            int old = counter.get();
+            if (old != DEAD && counter.compareAndSet(old, count)) {
+                return;
+            }
+        }
+    }
+
+    public int lookup(String word) {
+        AtomicInteger count = counts.get(word);
+        if (count == null) {
+            return 0;
+        }
+        int value = count.get();
+        return value == DEAD ? 0 : value;
+    }
+
+    public int add(String word, int delta) {
+        while (true) {
+            AtomicInteger counter = counter(word);
+            int old = counter.get();
+            if (old != DEAD && counter.compareAndSet(old, old + delta)) {
+                return old + delta;
+            }
+        }
+    }
+
+    public int remove(String word) {
+        AtomicInteger counter = counts.get(word);
+        while (counter != null) {
+            int old = counter.get();
+            if (old == DEAD) {
+                // another thread removed it first
+                return 0;
+            }
+            if (counter.compareAndSet(old, DEAD)) {
+                unlink(word, counter);
+                return old;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Decrements word in one atomic step, removing it when its count reaches 0,
+     * so threads decrementing and adding to the same word never leave it at 0
+     * or below.
+     *
+     * @param word the given word whose count is decremented
+     * @return the word's new count
+     */
+    public int decrement(String word) {
+        AtomicInteger counter = counts.get(word);
+        while (counter != null) {
+            int old = counter.get();
+            if (old == DEAD || old == 0) {
+                return 0;
+            }
+            if (old == 1) {
+                if (counter.compareAndSet(1, DEAD)) {
+                    unlink(word, counter);
+                    return 0;
+                }
+            } else if (counter.compareAndSet(old, old - 1)) {
+                return old - 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Takes a word whose counter has just been set to DEAD out of the skip list.
+     */
+    private void unlink(String word, AtomicInteger counter) {
+        counts.remove(word, counter);
+        size.decrementAndGet();
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public ArrayList<WordCount> getWordCountsByWord() {
+        ArrayList<WordCount> myWordCountArray = new ArrayList<WordCount>(size());
+        forEachWord((word, count) -> myWordCountArray.add(new WordCount(word, count)));
+        return myWordCountArray;
+    }
+
+    /**
+     * Visits every word in alphabetical order.
+     *
+     * @param action receives each word and its count
+     */
+    public void forEachWord(ObjIntConsumer<String> action) {
+        for (Map.Entry<String, AtomicInteger> entry : counts.entrySet()) {
+            int count = entry.getValue().get();
+            if (count != DEAD) {
+                action.accept(entry.getKey(), count);
+            }
+        }
+    }
+
+    /**
+     * Returns a Spliterator over the words in alphabetical order, splitting the skip list itself.
+     *
+     * @return a Spliterator over the words of this map
+     */
+    public Spliterator<WordCount> spliterator() {
+        return counts.entrySet().stream()
+                .map(entry -> new WordCount(entry.getKey(), entry.getValue().get()))
+                .filter(wordCount -> wordCount.count != DEAD)
+                .spliterator();
+    }
+}
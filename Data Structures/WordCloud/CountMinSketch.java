@@ -0,0 +1,115 @@
+/**
+ * Estimates how often each word occurs in a stream in fixed memory, without
+ * storing the words: a Count-Min Sketch of depth rows of width counters.
+ * Each word adds one to a counter in every row, chosen by a different hash,
+ * and its estimate is the smallest of those counters.
+ *
+ * An estimate is never too low. With probability 1 - e^-depth it is at most
+ * (e / width) * total() too high, whatever the stream.
+ */
+public class CountMinSketch {
+    private final int width;
+    private final int depth;
+    // row r is counters[r * width] to counters[r * width + width - 1]
+    private final int[] counters;
+    private long total;
+
+    /**
+     * @param width the number of counters per row
+     * @param depth the number of rows
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) {
+            throw new IllegalArgumentException("width and depth must be positive: " + width + " x " + depth);
+        }
+        this.width = width;
+        this.depth = depth;
+        counters = new int[width * depth];
+        total = 0;
+    }
+
+    /**
+     * Hashes a word to 64 bits (FNV-1a over its chars, then the MurmurHash3 finalizer
+     * so every output bit depends on every input bit). The sketch and HyperLogLog both
+     * take their hashes from here, so a word is only hashed once.
+     *
+     * @param word the word to hash
+     * @return a 64-bit hash of word
+     */
+    static long hash(String word) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < word.length(); i++) {
+            h = (h ^ word.charAt(i)) * 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+        h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    /**
+     * @return the counter of the given row for a word with this hash; the rows
+     *         use h1 + row * h2 from the two halves of the hash
+     */
+    private int index(long hash, int row) {
+        int h = (int) hash + row * (int) (hash >>> 32);
+        return row * width + (h & 0x7fffffff) % width;
+    }
+
+    /**
+     * Counts one occurrence of the word with the given hash.
+     *
+     * @param hash hash(word)
+     * @return the word's estimated count, including this occurrence
+     */
+    public int add(long hash) {
+        total++;
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int i = index(hash, row);
+            min = Math.min(min, ++counters[i]);
+        }
+        return min;
+    }
+
+    /**
+     * @param word a word of the stream
+     * @return the estimated count of word, never too low
+     */
+    public int estimate(String word) {
+        long hash = hash(word);
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters[index(hash, row)]);
+        }
+        return min;
+    }
+
+    /**
+     * @return the number of words counted
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * @return how much an estimate may be too high (with probability confidence()),
+     *         as a fraction of total()
+     */
+    public double epsilon() {
+        return Math.E / width;
+    }
+
+    /**
+     * @return the probability that an estimate is within epsilon() * total() of the true count
+     */
+    public double confidence() {
+        return 1 - Math.exp(-depth);
+    }
+
+    /**
+     * @return the number of bytes taken by the counters
+     */
+    public long bytes() {
+        return 4L * counters.length;
+    }
+}
@@ -0,0 +1,179 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.GZIPInputStream;
+/**
+ * Reads a gzip-compressed file with the decompression running on its own
+ * thread, so inflating the next part of the file overlaps with counting the
+ * words of the part before it. Nothing is written to disk.
+ *
+ * A fixed set of buffers goes round between the two threads through two
+ * bounded queues: the inflater thread takes an empty buffer, fills it and
+ * queues it as full; the reader takes a full buffer, uses it and hands it
+ * back with release(). When the reader falls behind, the inflater waits for
+ * a free buffer instead of using more memory.
+ *
+ * Buffers can be taken directly with take() and release(), as
+ * ByteTokenizer does, or the pipeline can be read as an ordinary InputStream.
+ */
+public class GzipPipeline extends InputStream {
+    private static final int BUFFERS = 4;
+    private static final int BUFFER_SIZE = 1 << 16;
+    // queued after the last full buffer
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+
+    private final String fileName;
+    private final InputStream in;
+    private final ArrayBlockingQueue<ByteBuffer> free;
+    private final ArrayBlockingQueue<ByteBuffer> full;
+    private final Thread inflater;
+    // set by the inflater thread if the file can't be read, or if anything else goes wrong there
+    private volatile Throwable failure;
+    private boolean ended;
+    // the buffer being read through the InputStream methods
+    private ByteBuffer current;
+
+    /**
+     * Opens the file and starts inflating it.
+     *
+     * @param fileName the .gz file to read
+     * @throws IOException if the file can't be opened or has no gzip header
+     */
+    public GzipPipeline(String fileName) throws IOException {
+        this.fileName = fileName;
+        FileInputStream file = new FileInputStream(fileName);
+        try {
+            in = new GZIPInputStream(file, BUFFER_SIZE);
+        } catch (IOException | RuntimeException e) {
+            // no header, so nothing owns the file yet
+            file.close();
+            throw e;
+        }
+        free = new ArrayBlockingQueue<>(BUFFERS);
+        full = new ArrayBlockingQueue<>(BUFFERS + 1);
+        for (int i = 0; i < BUFFERS; i++) {
+            free.add(ByteBuffer.allocate(BUFFER_SIZE));
+        }
+        inflater = new Thread(this::inflate, "inflate " + fileName);
+        inflater.setDaemon(true);
+        inflater.start();
+    }
+
+    /**
+     * The inflater thread: fills free buffers until the end of the file.
+     */
+    private void inflate() {
+        boolean closed = false;
+        try {
+            while (true) {
+                ByteBuffer buf = free.take();
+                byte[] array = buf.array();
+                int length = 0;
+                int n = 0;
+                // fill the whole buffer, since GZIPInputStream returns a little at a time
+                while (length < array.length && (n = in.read(array, length, array.length - length)) >= 0) {
+                    length += n;
+                }
+                if (length > 0) {
+                    buf.clear().limit(length);
+                    full.put(buf);
+                } else {
+                    free.add(buf);
+                }
+                if (n < 0) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            // closed before the end of the file, so nobody is waiting for the rest
+            closed = true;
+        } catch (Throwable e) {
+            failure = e;
+        } finally {
+            // whatever happened, the reader must not wait forever
+            if (!closed) {
+                full.add(END);
+            }
+        }
+    }
+
+    /**
+     * Waits for the next part of the file.
+     *
+     * @return a buffer holding the next bytes between its position and limit, or
+     *         null at the end of the file; pass it to release() once it has been used
+     * @throws IOException if the file couldn't be read or decompressed, or the inflater
+     *                     thread failed in some other way
+     */
+    public ByteBuffer take() throws IOException {
+        if (ended) {
+            return null;
+        }
+        try {
+            ByteBuffer buf = full.take();
+            if (buf == END) {
+                ended = true;
+                if (failure instanceof IOException) {
+                    throw new IOException(fileName + ": " + failure.getMessage(), failure);
+                } else if (failure instanceof Error) {
+                    throw (Error) failure;
+                } else if (failure != null) {
+                    throw new IOException(fileName + ": " + failure, failure);
+                }
+                return null;
+            }
+            return buf;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted reading " + fileName);
+        }
+    }
+
+    /**
+     * Hands a buffer from take() back to the inflater thread for reuse.
+     *
+     * @param buf the buffer, which must not be used afterwards
+     */
+    public void release(ByteBuffer buf) {
+        free.add(buf);
+    }
+
+    @Override
+    public int read() throws IOException {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (current == null || !current.hasRemaining()) {
+            if (current != null) {
+                release(current);
+            }
+            current = take();
+            if (current == null) {
+                return -1;
+            }
+        }
+        int n = Math.min(len, current.remaining());
+        current.get(b, off, n);
+        return n;
+    }
+
+    /**
+     * Stops the inflater thread, if it is still running, and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        inflater.interrupt();
+        try {
+            inflater.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        in.close();
+    }
+}
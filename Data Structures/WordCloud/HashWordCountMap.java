@@ -0,0 +1,197 @@
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+/**
+ * A WordCountMap backed by an open-addressing hash table with linear probing.
+ * Words live in a String[] and their counts in a parallel int[], so there is
+ * no node or Integer object per entry. The table keeps no order; the
+ * alphabetical listing is sorted once when it is asked for.
+ */
+public class HashWordCountMap implements WordCountMap {
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    // keys[i] is null for an empty slot, otherwise counts[i] is that word's count
+    private String[] keys;
+    private int[] counts;
+    // number of words in the table
+    private int size;
+    // capacity - 1, used to wrap slot indexes since capacity is a power of two
+    private int mask;
+    // 32 - log2(capacity): the hash is spread by multiplying and its top bits pick the slot
+    private int shift;
+
+    /**
+     * creates an empty table
+     */
+    public HashWordCountMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * creates an empty table that can hold expectedWords words before it has to grow
+     *
+     * @param expectedWords the number of distinct words expected
+     */
+    public HashWordCountMap(int expectedWords) {
+        // keep the table at most half full
+        int capacity = Integer.highestOneBit(Math.max(expectedWords, 8) * 2 - 1) << 1;
+        keys = new String[capacity];
+        counts = new int[capacity];
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+        size = 0;
+    }
+
+    /**
+     * Finds the slot holding word, or the empty slot where it belongs.
+     *
+     * @param word the word to look for
+     * @return the slot index
+     */
+    private int slot(String word) {
+        int i = (word.hashCode() * 0x9E3779B9) >>> shift;
+        while (keys[i] != null && !keys[i].equals(word)) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    public void insert(String word, int count) {
+        int i = slot(word);
+        if (keys[i] == null) {
+            claim(i, word, count);
+        } else {
+            counts[i] = count;
+        }
+    }
+
+    public int lookup(String word) {
+        return counts[slot(word)];
+    }
+
+    public int add(String word, int delta) {
+        int i = slot(word);
+        if (keys[i] == null) {
+            claim(i, word, delta);
+            return delta;
+        }
+        counts[i] += delta;
+        return counts[i];
+    }
+
+    /**
+     * Removes word in O(1) expected time. Instead of leaving a marker in the
+     * emptied slot, the words after it in the same probe run are shifted back
+     * into the gap wherever their own slot allows, so lookups still stop at
+     * the first empty slot.
+     *
+     * @param word the word to be removed
+     * @return the count word had, or 0 if it wasn't in the table
+     */
+    public int remove(String word) {
+        int gap = slot(word);
+        if (keys[gap] == null) {
+            return 0;
+        }
+        int count = counts[gap];
+        size--;
+        for (int j = (gap + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+            int home = (keys[j].hashCode() * 0x9E3779B9) >>> shift;
+            // keys[j] may move back if its home slot is not between the gap and j
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                counts[gap] = counts[j];
+                gap = j;
+            }
+        }
+        keys[gap] = null;
+        // empty slots hold a count of 0, which lookup() returns for missing words
+        counts[gap] = 0;
+        return count;
+    }
+
+    /**
+     * Stores a new word in the given empty slot, growing the table if it gets more than half full.
+     *
+     * @param i an empty slot, as returned by slot(word)
+     * @param word the new word
+     * @param count the new word's count
+     */
+    private void claim(int i, String word, int count) {
+        keys[i] = word;
+        counts[i] = count;
+        size++;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Doubles the table and re-inserts every word.
+     */
+    private void grow() {
+        String[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new String[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        shift--;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = slot(oldKeys[j]);
+                keys[i] = oldKeys[j];
+                counts[i] = oldCounts[j];
+            }
+        }
+    }
+
+    /**
+     * Visits every word in slot order, without sorting.
+     *
+     * @param action receives each word and its count
+     */
+    public void forEachWord(ObjIntConsumer<String> action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                action.accept(keys[i], counts[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a list of WordCount objects, one per word stored in this
+     * map, sorted alphabetically by word. The sort happens here, once,
+     * rather than on every insert.
+     * @return returns an ArrayList of WordCount objects
+     */
+    public ArrayList<WordCount> getWordCountsByWord() {
+        String[] words = new String[size];
+        int k = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != null) {
+                words[k++] = keys[i];
+            }
+        }
+        // sorting the bare Strings is cheaper than sorting WordCounts with a comparator;
+        // the counts are picked up again with one probe per word
+        Arrays.sort(words);
+        ArrayList<WordCount> myWordCountArray = new ArrayList<WordCount>(size);
+        for (String word : words) {
+            myWordCountArray.add(new WordCount(word, counts[slot(word)]));
+        }
+        return myWordCountArray;
+    }
+
+    /**
+     * Returns a Spliterator over the words in alphabetical order. A hash table
+     * has no order to walk, so this sorts the words first, like getWordCountsByWord().
+     *
+     * @return a Spliterator over the words of this map
+     */
+    public Spliterator<WordCount> spliterator() {
+        return getWordCountsByWord().spliterator();
+    }
+}
@@ -0,0 +1,179 @@
+import java.util.*;
+/**
+ * Finds the most frequent words of a stream in fixed memory, using the
+ * Space-Saving algorithm. At most capacity words are tracked. When a new word
+ * arrives and the table is full, it replaces the tracked word with the lowest
+ * count and inherits that count (remembered as the new word's error).
+ *
+ * Every word that occurs more than n / capacity times in a stream of n words
+ * is guaranteed to be tracked, and a tracked word's estimate is never too low
+ * and at most its error too high.
+ */
+public class HeavyHitters {
+    // min-heap on count over the tracked words, with each word's heap position in slots
+    private final String[] words;
+    private final int[] counts;
+    private final int[] errors;
+    private final HashMap<String, Integer> slots;
+    private int size;
+
+    /**
+     * @param capacity the number of words to track
+     */
+    public HeavyHitters(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        words = new String[capacity];
+        counts = new int[capacity];
+        errors = new int[capacity];
+        slots = new HashMap<>(capacity * 2);
+        size = 0;
+    }
+
+    /**
+     * Counts one occurrence of word.
+     *
+     * @param word the next word of the stream
+     */
+    public void offer(String word) {
+        Integer slot = slots.get(word);
+        if (slot != null) {
+            counts[slot]++;
+            siftDown(slot);
+        } else if (size < words.length) {
+            words[size] = word;
+            counts[size] = 1;
+            errors[size] = 0;
+            slots.put(word, size);
+            siftUp(size++);
+        } else {
+            // evict the word with the lowest count; the newcomer may have had up to that many hits
+            slots.remove(words[0]);
+            errors[0] = counts[0];
+            counts[0]++;
+            words[0] = word;
+            slots.put(word, 0);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Tracks word with a count estimated elsewhere, e.g. by a CountMinSketch, instead of
+     * counting it here. A new word only displaces the lowest tracked word if its estimate
+     * is higher, so the table keeps the words with the highest estimates seen so far.
+     *
+     * @param word the next word of the stream
+     * @param estimate the word's estimated count, including this occurrence
+     */
+    public void offer(String word, int estimate) {
+        Integer slot = slots.get(word);
+        if (slot != null) {
+            counts[slot] = Math.max(counts[slot], estimate);
+            siftDown(slot);
+        } else if (size < words.length) {
+            words[size] = word;
+            counts[size] = estimate;
+            errors[size] = 0;
+            slots.put(word, size);
+            siftUp(size++);
+        } else if (estimate > counts[0]) {
+            slots.remove(words[0]);
+            counts[0] = estimate;
+            words[0] = word;
+            slots.put(word, 0);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * @param word a word of the stream
+     * @return the estimated count of word (never too low if it is tracked), or 0 if it isn't tracked
+     */
+    public int estimate(String word) {
+        Integer slot = slots.get(word);
+        return slot == null ? 0 : counts[slot];
+    }
+
+    /**
+     * @param word a word of the stream
+     * @return how much estimate(word) may be too high
+     */
+    public int error(String word) {
+        Integer slot = slots.get(word);
+        return slot == null ? 0 : errors[slot];
+    }
+
+    /**
+     * @return the number of words being tracked
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the most words that can be tracked at once
+     */
+    public int capacity() {
+        return words.length;
+    }
+
+    /**
+     * Returns the k tracked words with the highest estimated counts.
+     *
+     * @param k the number of words wanted
+     * @return at most k WordCounts sorted in decreasing order by estimated count
+     */
+    public ArrayList<WordCount> topK(int k) {
+        return toWordCountMap().topK(k);
+    }
+
+    /**
+     * Copies the tracked words and their estimated counts into a map, so that
+     * the usual listings can be printed from them.
+     *
+     * @return a map holding every tracked word
+     */
+    public WordCountMap toWordCountMap() {
+        HashWordCountMap map = new HashWordCountMap(size);
+        for (int i = 0; i < size; i++) {
+            map.insert(words[i], counts[i]);
+        }
+        return map;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0 && counts[(i - 1) / 2] > counts[i]) {
+            swap(i, (i - 1) / 2);
+            i = (i - 1) / 2;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && counts[child + 1] < counts[child]) {
+                child++;
+            }
+            if (counts[i] <= counts[child]) {
+                return;
+            }
+            swap(i, child);
+            i = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        String word = words[i];
+        words[i] = words[j];
+        words[j] = word;
+        int count = counts[i];
+        counts[i] = counts[j];
+        counts[j] = count;
+        int error = errors[i];
+        errors[i] = errors[j];
+        errors[j] = error;
+        slots.put(words[i], i);
+        slots.put(words[j], j);
+    }
+}
@@ -0,0 +1,73 @@
+/**
+ * Estimates the number of distinct words in a stream in fixed memory, using
+ * HyperLogLog. The top bits of a word's hash pick one of 2^precision
+ * registers, and the register keeps the longest run of leading zeros seen in
+ * the rest of the hash; many distinct words make long runs likely.
+ *
+ * The estimate has a relative standard error of about 1.04 / sqrt(2^precision),
+ * e.g. 0.8% for precision 14, which takes 16 KB.
+ */
+public class HyperLogLog {
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * @param precision log2 of the number of registers, from 4 to 18
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) {
+            throw new IllegalArgumentException("precision must be from 4 to 18: " + precision);
+        }
+        this.precision = precision;
+        registers = new byte[1 << precision];
+    }
+
+    /**
+     * Records a word.
+     *
+     * @param hash a 64-bit hash of the word, e.g. CountMinSketch.hash(word)
+     */
+    public void add(long hash) {
+        int i = (int) (hash >>> (64 - precision));
+        // the sentinel bit caps the run at 64 - precision zeros
+        int rank = Long.numberOfLeadingZeros((hash << precision) | (1L << (precision - 1))) + 1;
+        if (rank > registers[i]) {
+            registers[i] = (byte) rank;
+        }
+    }
+
+    /**
+     * @return the estimated number of distinct words recorded
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = 0.7213 / (1 + 1.079 / m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            // few words: count the empty registers instead (linear counting)
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * @return the relative standard error of estimate()
+     */
+    public double standardError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    /**
+     * @return the number of bytes taken by the registers
+     */
+    public long bytes() {
+        return registers.length;
+    }
+}
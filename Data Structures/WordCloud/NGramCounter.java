@@ -0,0 +1,281 @@
+import java.util.*;
+/**
+ * Counts n-grams (runs of n consecutive words, e.g. "sherlock holmes") without
+ * building a String per n-gram.
+ *
+ * Every distinct word gets a small integer ID, and an n-gram is keyed by its n
+ * IDs packed into one long, 64 / n bits each. The counts live in an
+ * open-addressing table of primitive long keys and int counts, so counting
+ * costs no allocation at all once the words are known. Strings for the
+ * n-grams are only made when results are asked for.
+ *
+ * Once there are more distinct words than fit in 64 / n bits (65,535 for
+ * 4-grams, about 2 million for trigrams), the table switches to hashed keys:
+ * an n-gram is keyed by a 64-bit hash of its IDs, and the IDs themselves are
+ * kept beside it, n ints per slot, so that n-grams whose hashes collide are
+ * still told apart and every n-gram can be turned back into its words.
+ *
+ * Words are fed in order with add(), and endText() is called between texts;
+ * stop words should be removed first, as WordCounter does for single words.
+ */
+public class NGramCounter {
+    private final int n;
+    private final int bitsPerWord;
+    // word -> ID + 1 (so that 0 means "no ID yet"), and ID -> word
+    private final HashWordCountMap ids;
+    private String[] words;
+    // the IDs (+ 1) of the last n words, oldest first once n words have been seen
+    private final long[] window;
+    private int seen;
+    // the n-gram table: keys[i] == 0 marks an empty slot
+    private long[] keys;
+    private int[] counts;
+    private int size;
+    private int shift;
+    // set once the IDs no longer fit in bitsPerWord; then grams[i * n, i * n + n)
+    // holds the IDs (+ 1) of the n-gram in slot i, and keys[i] is their hash
+    private boolean hashed;
+    private int[] grams;
+
+    /**
+     * @param n the number of words per n-gram, from 2 to 4
+     */
+    public NGramCounter(int n) {
+        if (n < 2 || n > 4) {
+            throw new IllegalArgumentException("n-grams must have 2 to 4 words: " + n);
+        }
+        this.n = n;
+        this.bitsPerWord = 64 / n;
+        ids = new HashWordCountMap();
+        words = new String[1024];
+        window = new long[n];
+        seen = 0;
+        keys = new long[1024];
+        counts = new int[1024];
+        size = 0;
+        shift = Long.numberOfLeadingZeros(keys.length) + 1;
+    }
+
+    /**
+     * Feeds the next word of the text, counting the n-gram that ends with it.
+     *
+     * @param word the next word
+     */
+    public void add(String word) {
+        long id = ids.lookup(word);
+        if (id == 0) {
+            id = ids.size() + 1;
+            if (!hashed && id >>> bitsPerWord != 0) {
+                useHashedKeys();
+            }
+            ids.insert(word, (int) id);
+            if (id > words.length) {
+                words = Arrays.copyOf(words, words.length * 2);
+            }
+            words[(int) id - 1] = word;
+        }
+        System.arraycopy(window, 1, window, 0, n - 1);
+        window[n - 1] = id;
+        if (++seen >= n) {
+            if (hashed) {
+                incrementHashed();
+            } else {
+                long key = 0;
+                for (int i = 0; i < n; i++) {
+                    key = key << bitsPerWord | window[i];
+                }
+                increment(key);
+            }
+        }
+    }
+
+    /**
+     * Marks the end of a text, so that no n-gram spans it and the next text.
+     */
+    public void endText() {
+        seen = 0;
+    }
+
+    /**
+     * Adds one to the count of a packed n-gram key.
+     */
+    private void increment(long key) {
+        int i = slot(key);
+        if (keys[i] == key) {
+            counts[i]++;
+            return;
+        }
+        keys[i] = key;
+        counts[i] = 1;
+        size++;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Adds one to the count of the n-gram in the window, with hashed keys.
+     */
+    private void incrementHashed() {
+        long key = hash(window);
+        int i = (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        while (keys[i] != 0) {
+            if (keys[i] == key && sameGram(i)) {
+                counts[i]++;
+                return;
+            }
+            i = (i + 1) & (keys.length - 1);
+        }
+        keys[i] = key;
+        counts[i] = 1;
+        for (int j = 0; j < n; j++) {
+            grams[i * n + j] = (int) window[j];
+        }
+        size++;
+        if (size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    /**
+     * @return true if slot i holds the n-gram in the window
+     */
+    private boolean sameGram(int i) {
+        for (int j = 0; j < n; j++) {
+            if (grams[i * n + j] != window[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return a 64-bit hash of n word IDs, never 0 since 0 marks an empty slot
+     */
+    private static long hash(long[] gram) {
+        long h = 0;
+        for (long id : gram) {
+            h = (h ^ id) * 0xFF51AFD7ED558CCDL;
+            h ^= h >>> 33;
+        }
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * Switches the table to hashed keys, because the next word ID no longer
+     * fits in bitsPerWord. Every packed key is unpacked into its IDs and
+     * stored again under its hash.
+     */
+    private void useHashedKeys() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length];
+        counts = new int[keys.length];
+        grams = new int[keys.length * n];
+        hashed = true;
+        long[] gram = new long[n];
+        long mask = (1L << bitsPerWord) - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != 0) {
+                for (int k = 0; k < n; k++) {
+                    gram[k] = (oldKeys[j] >>> ((n - 1 - k) * bitsPerWord)) & mask;
+                }
+                long key = hash(gram);
+                int i = emptySlot(key);
+                keys[i] = key;
+                counts[i] = oldCounts[j];
+                for (int k = 0; k < n; k++) {
+                    grams[i * n + k] = (int) gram[k];
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the slot holding key, or the empty slot where it belongs
+     */
+    private int slot(long key) {
+        int i = (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        while (keys[i] != 0 && keys[i] != key) {
+            i = (i + 1) & (keys.length - 1);
+        }
+        return i;
+    }
+
+    /**
+     * @return the first empty slot for key, for moving entries that are known to be distinct
+     */
+    private int emptySlot(long key) {
+        int i = (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+        while (keys[i] != 0) {
+            i = (i + 1) & (keys.length - 1);
+        }
+        return i;
+    }
+
+    /**
+     * Doubles the n-gram table.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        int[] oldGrams = grams;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[keys.length];
+        if (hashed) {
+            grams = new int[keys.length * n];
+        }
+        shift--;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != 0) {
+                int i = emptySlot(oldKeys[j]);
+                keys[i] = oldKeys[j];
+                counts[i] = oldCounts[j];
+                if (hashed) {
+                    System.arraycopy(oldGrams, j * n, grams, i * n, n);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the number of distinct n-grams counted
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Turns the n-gram in slot i back into its words, separated by spaces.
+     */
+    private String decode(int i) {
+        StringBuilder gram = new StringBuilder();
+        long mask = (1L << bitsPerWord) - 1;
+        for (int j = 0; j < n; j++) {
+            if (j > 0) {
+                gram.append(' ');
+            }
+            long id = hashed ? grams[i * n + j] : (keys[i] >>> ((n - 1 - j) * bitsPerWord)) & mask;
+            gram.append(words[(int) id - 1]);
+        }
+        return gram.toString();
+    }
+
+    /**
+     * Copies the n-grams into a WordCountMap keyed by "word1 word2 ...", so the usual
+     * frequency and alphabetical listings can print them.
+     *
+     * @return a map holding every n-gram and its count
+     */
+    public WordCountMap toWordCountMap() {
+        HashWordCountMap map = new HashWordCountMap(size);
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                map.insert(decode(i), counts[i]);
+            }
+        }
+        return map;
+    }
+}
@@ -0,0 +1,118 @@
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.*;
+import java.util.concurrent.*;
+/**
+ * Counts the words of one large file on a ForkJoinPool. The text is split into
+ * chunks at separator characters (so no word is cut in two), every chunk is
+ * counted into its own HashWordCountMap, and the partial maps are merged as the
+ * tasks finish. The words are split exactly as WordTokenizer splits them, so
+ * the final counts are the same as a sequential WordCounter.load.
+ */
+public class ParallelWordCounter {
+    // chunks smaller than this are counted by a single task
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    private final StopWords stopWords;
+    private final ForkJoinPool pool;
+
+    /**
+     * @param stopWords words to leave out of the counts
+     * @param pool the pool that runs the counting tasks
+     */
+    public ParallelWordCounter(StopWords stopWords, ForkJoinPool pool) {
+        this.stopWords = stopWords;
+        this.pool = pool;
+    }
+
+    /**
+     * Counts every word of the file and adds the counts to target.
+     *
+     * @param fileName the text file to count, which is decompressed first if it ends in .gz
+     * @param target the map that receives the counts
+     * @throws IOException if the file cannot be read
+     */
+    public void count(String fileName, WordCountMap target) throws IOException {
+        byte[] bytes;
+        if (fileName.endsWith(".gz")) {
+            try (InputStream in = new GzipPipeline(fileName)) {
+                bytes = in.readAllBytes();
+            }
+        } else {
+            bytes = Files.readAllBytes(Paths.get(fileName));
+        }
+        // decoded the same way FileReader decodes it
+        String text = new String(bytes, Charset.defaultCharset());
+        HashWordCountMap counts = pool.invoke(new CountTask(text, 0, text.length()));
+        counts.addTo(target);
+    }
+
+    /**
+     * Counts the words in text[lo, hi), splitting the range in two while it is larger than CHUNK_SIZE.
+     */
+    private class CountTask extends RecursiveTask<HashWordCountMap> {
+        private static final long serialVersionUID = 1L;
+
+        private final String text;
+        private final int lo;
+        private final int hi;
+
+        CountTask(String text, int lo, int hi) {
+            this.text = text;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected HashWordCountMap compute() {
+            if (hi - lo <= CHUNK_SIZE) {
+                return countChunk();
+            }
+            // move the split point forward to a separator so it doesn't fall inside a word
+            int mid = lo + (hi - lo) / 2;
+            while (mid < hi && WordTokenizer.fold(text.charAt(mid)) != 0) {
+                mid++;
+            }
+            CountTask left = new CountTask(text, lo, mid);
+            CountTask right = new CountTask(text, mid, hi);
+            right.fork();
+            HashWordCountMap leftCounts = left.compute();
+            HashWordCountMap rightCounts = right.join();
+            // merge the smaller map into the larger one
+            if (leftCounts.size() < rightCounts.size()) {
+                leftCounts.addTo(rightCounts);
+                return rightCounts;
+            }
+            rightCounts.addTo(leftCounts);
+            return leftCounts;
+        }
+
+        /**
+         * counts one chunk into a fresh map owned by this task
+         *
+         * @return the chunk's counts
+         */
+        private HashWordCountMap countChunk() {
+            HashWordCountMap counts = new HashWordCountMap();
+            char[] word = new char[64];
+            int length = 0;
+            for (int i = lo; i <= hi; i++) {
+                char c = i < hi ? WordTokenizer.fold(text.charAt(i)) : 0;
+                if (c != 0) {
+                    if (length == word.length) {
+                        char[] bigger = new char[word.length * 2];
+                        System.arraycopy(word, 0, bigger, 0, length);
+                        word = bigger;
+                    }
+                    word[length++] = c;
+                } else if (length > 0) {
+                    String w = new String(word, 0, length);
+                    if (!stopWords.contains(w)) {
+                        counts.incrementCount(w);
+                    }
+                    length = 0;
+                }
+            }
+            return counts;
+        }
+    }
+}
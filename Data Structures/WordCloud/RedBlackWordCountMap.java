@@ -0,0 +1,660 @@
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+/**
+ * A WordCountMap backed by a left-leaning red-black tree.
+ * The plain BST in BSTWordCountMap turns into a linked list when words arrive
+ * in sorted order; this tree keeps its height O(log n) for any insertion
+ * order, so insert, lookup, incrementCount and remove stay logarithmic.
+ *
+ * Every node also records the number of words and the total count in its
+ * subtree. That supports order-statistic queries (rank, select) and range and
+ * prefix queries in O(log n + number of words returned).
+ */
+public class RedBlackWordCountMap implements WordCountMap {
+    private static final boolean RED = true;
+    private static final boolean BLACK = false;
+
+    // root of the red-black tree
+    private RBNode root;
+    // count left behind by the most recent add(), so the recursion can return nodes
+    private int lastCount;
+    private class RBNode {
+        // RBNode's word, count, left and right nodes and the color of the link from its parent
+        private String word;
+        private int count;
+        private RBNode left;
+        private RBNode right;
+        private boolean color;
+        // number of words and sum of their counts in the subtree rooted here
+        private int size;
+        private long sum;
+        /**
+         * creates a new red node, since new nodes are always linked in red
+         * @param word the RBNode's word
+         * @param count the RBNode's count
+         */
+        public RBNode(String word, int count) {
+            this.word = word;
+            this.count = count;
+            left = null;
+            right = null;
+            color = RED;
+            size = 1;
+            sum = count;
+        }
+        /**
+         * method to convert node to string
+         */
+        public String toString() {
+            return String.format("{%s -> %s}", word, count);
+        }
+    }
+    /**
+     * sets RedBlackWordCountMap's root to null
+     */
+    public RedBlackWordCountMap() {
+        root = null;
+    }
+
+    /**
+     * Insert given word-count pair.
+     * If word is already in the tree, replace its count.
+     *
+     * @param word the word to be inserted
+     * @param count the count to be associated with word
+     */
+    public void insert(String word, int count) {
+        root = insert(root, word, count);
+        root.color = BLACK;
+    }
+
+    /**
+     * Helper method to insert()
+     * Inserts given word-count pair to tree rooted at given node
+     * and rebalances on the way back up.
+     *
+     * @param n root of subtree to be inserted into
+     * @param word the word to be inserted
+     * @param count count to be associated with word
+     * @return the new root of the given subtree
+     */
+    private RBNode insert(RBNode n, String word, int count) {
+        if (n == null) {
+            return new RBNode(word, count);
+        }
+        int cmp = word.compareTo(n.word);
+        if (cmp < 0) {
+            n.left = insert(n.left, word, count);
+        } else if (cmp > 0) {
+            n.right = insert(n.right, word, count);
+        } else {
+            n.sum += count - n.count;
+            n.count = count;
+        }
+        return balance(n);
+    }
+
+    /**
+     * Retrieve the count associated with given word
+     * (or 0 if it isn't present).
+     *
+     * @param word the word to be looked up
+     * @return the count associated with word
+     */
+    public int lookup(String word) {
+        RBNode n = root;
+        while (n != null) {
+            int cmp = word.compareTo(n.word);
+            if (cmp < 0) {
+                n = n.left;
+            } else if (cmp > 0) {
+                n = n.right;
+            } else {
+                return n.count;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Adds delta to the count of the specified word. If the word is not in
+     * this map yet, it is added with a count of delta.
+     *
+     * @param word the given word that will be either inserted or have its count increased
+     * @param delta the amount to add to the word's count
+     * @return the word's new count
+     */
+    public int add(String word, int delta) {
+        root = add(root, word, delta);
+        root.color = BLACK;
+        return lastCount;
+    }
+
+    /**
+     * Helper method to add().
+     * Descends once, comparing once per node, and rebalances on the way back up.
+     * The word's new count is left in lastCount.
+     *
+     * @param n root of the subtree
+     * @param word the word to be added to
+     * @param delta the amount to add to the word's count
+     * @return the new root of the given subtree
+     */
+    private RBNode add(RBNode n, String word, int delta) {
+        if (n == null) {
+            lastCount = delta;
+            return new RBNode(word, delta);
+        }
+        int cmp = word.compareTo(n.word);
+        if (cmp < 0) {
+            n.left = add(n.left, word, delta);
+        } else if (cmp > 0) {
+            n.right = add(n.right, word, delta);
+        } else {
+            // an existing word only changes its count, so the shape is untouched
+            n.count += delta;
+            n.sum += delta;
+            lastCount = n.count;
+            return n;
+        }
+        return balance(n);
+    }
+
+    /**
+     * Removes word and its count from the tree, in O(log n). Subtree sizes and
+     * count sums are kept up to date.
+     *
+     * @param word the word to be removed
+     * @return the count word had, or 0 if it wasn't in the tree
+     */
+    public int remove(String word) {
+        int count = lookup(word);
+        if (count == 0 && !contains(word)) {
+            return 0;
+        }
+        // the root temporarily turns red so the descent can borrow from it
+        if (!isRed(root.left) && !isRed(root.right)) {
+            root.color = RED;
+        }
+        root = delete(root, word);
+        if (root != null) {
+            root.color = BLACK;
+        }
+        return count;
+    }
+
+    /**
+     * Helper method to remove().
+     *
+     * @param word the word to look for
+     * @return true if word is in the tree
+     */
+    private boolean contains(String word) {
+        RBNode n = root;
+        while (n != null) {
+            int cmp = word.compareTo(n.word);
+            if (cmp == 0) {
+                return true;
+            }
+            n = cmp < 0 ? n.left : n.right;
+        }
+        return false;
+    }
+
+    /**
+     * Helper method to remove().
+     * Deletes word from the subtree rooted at n. On the way down, red links
+     * are pushed towards the word (moveRedLeft, moveRedRight), so the node
+     * finally removed is never a lone black node; balance() then restores the
+     * invariants, sizes and sums on the way back up.
+     *
+     * @param n root of the subtree, which must contain word
+     * @param word the word to be deleted
+     * @return the new root of the given subtree
+     */
+    private RBNode delete(RBNode n, String word) {
+        if (word.compareTo(n.word) < 0) {
+            if (!isRed(n.left) && !isRed(n.left.left)) {
+                n = moveRedLeft(n);
+            }
+            n.left = delete(n.left, word);
+        } else {
+            if (isRed(n.left)) {
+                n = rotateRight(n);
+            }
+            if (word.compareTo(n.word) == 0 && n.right == null) {
+                return null;
+            }
+            if (!isRed(n.right) && !isRed(n.right.left)) {
+                n = moveRedRight(n);
+            }
+            if (word.compareTo(n.word) == 0) {
+                // take the place of the smallest word on the right, and remove that instead
+                RBNode successor = n.right;
+                while (successor.left != null) {
+                    successor = successor.left;
+                }
+                n.word = successor.word;
+                n.count = successor.count;
+                n.right = deleteSmallest(n.right);
+            } else {
+                n.right = delete(n.right, word);
+            }
+        }
+        return balance(n);
+    }
+
+    /**
+     * Helper method to delete(): removes the smallest word of the subtree rooted at n.
+     *
+     * @param n root of the subtree
+     * @return the new root of the given subtree
+     */
+    private RBNode deleteSmallest(RBNode n) {
+        if (n.left == null) {
+            return null;
+        }
+        if (!isRed(n.left) && !isRed(n.left.left)) {
+            n = moveRedLeft(n);
+        }
+        n.left = deleteSmallest(n.left);
+        return balance(n);
+    }
+
+    /**
+     * Makes n.left or one of its children red, when both n.left and n.left.left are black.
+     */
+    private RBNode moveRedLeft(RBNode n) {
+        flipColors(n);
+        if (isRed(n.right.left)) {
+            n.right = rotateRight(n.right);
+            n = rotateLeft(n);
+            flipColors(n);
+        }
+        return n;
+    }
+
+    /**
+     * Makes n.right or one of its children red, when both n.right and n.right.left are black.
+     */
+    private RBNode moveRedRight(RBNode n) {
+        flipColors(n);
+        if (isRed(n.left.left)) {
+            n = rotateRight(n);
+            flipColors(n);
+        }
+        return n;
+    }
+
+    /**
+     * Adds every count in other to this map in O(n + m): the two alphabetical
+     * sequences are merged and a balanced red-black tree is built from the result.
+     *
+     * @param other the counts to merge in (unchanged)
+     */
+    public void merge(WordCountMap other) {
+        SortedWordCountMap merged = SortedWordCountMap.merge(this, other);
+        // the smallest 2-3 tree height that can hold every word
+        int height = 0;
+        while (pow3(height) - 1 < merged.size()) {
+            height++;
+        }
+        root = build(merged, 0, merged.size(), height);
+    }
+
+    /**
+     * Helper method to merge(): builds the sorted words merged[lo, hi) into a perfectly
+     * balanced 2-3 tree of the given height, written as a left-leaning red-black tree
+     * (a 3-node is a black node whose left child is red). A 2-3 tree of height h holds
+     * between 2^h - 1 and 3^h - 1 words, and each level uses 2-nodes while the words
+     * still fit, so every subtree gets a count it can hold.
+     *
+     * @return the root of the new subtree
+     */
+    private RBNode build(SortedWordCountMap merged, int lo, int hi, int height) {
+        if (height == 0) {
+            return null;
+        }
+        int n = hi - lo;
+        long childMax = pow3(height - 1) - 1;
+        if (n - 1 <= 2 * childMax) {
+            // a 2-node: the middle word, with half of the rest on each side
+            int mid = lo + (n - 1) / 2;
+            RBNode x = buildNode(merged, mid, BLACK);
+            x.left = build(merged, lo, mid, height - 1);
+            x.right = build(merged, mid + 1, hi, height - 1);
+            return update(x);
+        }
+        // a 3-node: two words, with a third of the rest in each of three children
+        int rest = n - 2;
+        int first = lo + rest / 3;
+        int second = first + 1 + (rest - rest / 3) / 2;
+        RBNode redNode = buildNode(merged, first, RED);
+        redNode.left = build(merged, lo, first, height - 1);
+        redNode.right = build(merged, first + 1, second, height - 1);
+        RBNode x = buildNode(merged, second, BLACK);
+        x.left = update(redNode);
+        x.right = build(merged, second + 1, hi, height - 1);
+        return update(x);
+    }
+
+    private RBNode buildNode(SortedWordCountMap merged, int i, boolean color) {
+        RBNode n = new RBNode(merged.word(i), merged.count(i));
+        n.color = color;
+        return n;
+    }
+
+    private static long pow3(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 3;
+        }
+        return result;
+    }
+
+    /**
+     * Recomputes the subtree size and count sum stored at n from its children.
+     *
+     * @return n
+     */
+    private RBNode update(RBNode n) {
+        n.size = 1 + size(n.left) + size(n.right);
+        n.sum = n.count + sum(n.left) + sum(n.right);
+        return n;
+    }
+
+    /**
+     * Returns the number of levels in the tree, which stays within 2 lg n.
+     *
+     * @return the height of the tree (0 for an empty tree)
+     */
+    public int height() {
+        return height(root);
+    }
+
+    /**
+     * Helper method to height().
+     *
+     * @param n root of the subtree
+     * @return the height of the subtree
+     */
+    private int height(RBNode n) {
+        if (n == null) {
+            return 0;
+        }
+        return 1 + Math.max(height(n.left), height(n.right));
+    }
+
+    /**
+     * Returns the number of distinct words in the tree.
+     *
+     * @return the number of words
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Returns the total of all counts in the map.
+     *
+     * @return the sum of every word's count
+     */
+    public long totalCount() {
+        return sum(root);
+    }
+
+    /**
+     * Returns the number of words in the map that come alphabetically before word.
+     * word itself doesn't need to be in the map.
+     *
+     * @param word the word to rank
+     * @return the number of smaller words
+     */
+    public int rank(String word) {
+        int rank = 0;
+        RBNode n = root;
+        while (n != null) {
+            int cmp = word.compareTo(n.word);
+            if (cmp < 0) {
+                n = n.left;
+            } else if (cmp > 0) {
+                // n and its whole left subtree are smaller than word
+                rank += 1 + size(n.left);
+                n = n.right;
+            } else {
+                return rank + size(n.left);
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the word with the given rank, i.e. the (i+1)-th word alphabetically.
+     *
+     * @param i the rank, from 0 to size() - 1
+     * @return the word and its count
+     * @throws IndexOutOfBoundsException if i is not a valid rank
+     */
+    public WordCount select(int i) {
+        if (i < 0 || i >= size()) {
+            throw new IndexOutOfBoundsException("rank " + i + " of " + size() + " words");
+        }
+        RBNode n = root;
+        while (true) {
+            int leftSize = size(n.left);
+            if (i < leftSize) {
+                n = n.left;
+            } else if (i > leftSize) {
+                i -= leftSize + 1;
+                n = n.right;
+            } else {
+                return new WordCount(n.word, n.count);
+            }
+        }
+    }
+
+    /**
+     * Returns the words w with from <= w < to, in alphabetical order.
+     *
+     * @param from the smallest word to include
+     * @param to the word to stop before, or null for no upper limit
+     * @return the words in the range with their counts
+     */
+    public ArrayList<WordCount> range(String from, String to) {
+        ArrayList<WordCount> myWordCountArray = new ArrayList<WordCount>();
+        range(root, from, to, myWordCountArray);
+        return myWordCountArray;
+    }
+
+    /**
+     * Helper method to range(): adds the words of the subtree that are in the range,
+     * skipping subtrees that lie completely outside it.
+     */
+    private void range(RBNode n, String from, String to, ArrayList<WordCount> myWordCountArray) {
+        if (n == null) {
+            return;
+        }
+        boolean aboveFrom = from.compareTo(n.word) <= 0;
+        boolean belowTo = to == null || n.word.compareTo(to) < 0;
+        if (aboveFrom) {
+            range(n.left, from, to, myWordCountArray);
+        }
+        if (aboveFrom && belowTo) {
+            myWordCountArray.add(new WordCount(n.word, n.count));
+        }
+        if (belowTo) {
+            range(n.right, from, to, myWordCountArray);
+        }
+    }
+
+    /**
+     * Returns every word that starts with prefix, in alphabetical order
+     * (for example, to suggest completions of a partly typed word).
+     *
+     * @param prefix the start of the words
+     * @return the matching words with their counts
+     */
+    public ArrayList<WordCount> wordsWithPrefix(String prefix) {
+        return range(prefix, prefixEnd(prefix));
+    }
+
+    /**
+     * Returns the total count of the words that start with prefix, in O(log n).
+     *
+     * @param prefix the start of the words
+     * @return the sum of the counts of the matching words
+     */
+    public long countWithPrefix(String prefix) {
+        String end = prefixEnd(prefix);
+        long upTo = end == null ? sum(root) : sumBefore(end);
+        return upTo - sumBefore(prefix);
+    }
+
+    /**
+     * Returns the total count of the words alphabetically before word.
+     *
+     * @param word the upper limit (not included)
+     * @return the sum of the counts of the smaller words
+     */
+    private long sumBefore(String word) {
+        long total = 0;
+        RBNode n = root;
+        while (n != null) {
+            int cmp = word.compareTo(n.word);
+            if (cmp <= 0) {
+                n = n.left;
+            } else {
+                total += n.count + sum(n.left);
+                n = n.right;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Returns the smallest string that comes after every word starting with prefix,
+     * or null if there is none (the prefix is empty or all \uffff characters).
+     *
+     * @param prefix the start of the words
+     * @return the end of the prefix's range
+     */
+    private static String prefixEnd(String prefix) {
+        int i = prefix.length() - 1;
+        while (i >= 0 && prefix.charAt(i) == Character.MAX_VALUE) {
+            i--;
+        }
+        if (i < 0) {
+            return null;
+        }
+        return prefix.substring(0, i) + (char) (prefix.charAt(i) + 1);
+    }
+
+    private int size(RBNode n) {
+        return n == null ? 0 : n.size;
+    }
+
+    private long sum(RBNode n) {
+        return n == null ? 0 : n.sum;
+    }
+
+    /**
+     * Returns a list of WordCount objects, one per word stored in this
+     * map, sorted alphabetically by word.
+     * @return returns an ArrayList of WordCount objects
+     */
+    public ArrayList<WordCount> getWordCountsByWord() {
+        ArrayList<WordCount> myWordCountArray = new ArrayList<WordCount>(size());
+        forEachWord((word, count) -> myWordCountArray.add(new WordCount(word, count)));
+        return myWordCountArray;
+    }
+
+    /**
+     * Visits every word in alphabetical order.
+     *
+     * @param action receives each word and its count
+     */
+    public void forEachWord(ObjIntConsumer<String> action) {
+        forEachWord(root, action);
+    }
+
+    /**
+     * Helper method to forEachWord(): in-order traversal of the subtree rooted at n.
+     *
+     * @param n a given RBNode, possibly null
+     * @param action receives each word and its count
+     */
+    private void forEachWord(RBNode n, ObjIntConsumer<String> action) {
+        if (n == null) {
+            return;
+        }
+        forEachWord(n.left, action);
+        action.accept(n.word, n.count);
+        forEachWord(n.right, action);
+    }
+
+    /**
+     * Returns a lazy Spliterator that walks the tree in alphabetical order.
+     *
+     * @return a Spliterator over the words of this map
+     */
+    public Spliterator<WordCount> spliterator() {
+        return new TreeSpliterator<RBNode>(root, size(), n -> n.left, n -> n.right,
+                n -> new WordCount(n.word, n.count));
+    }
+
+    /**
+     * Restores the left-leaning red-black invariants at n after an insert or delete below it.
+     *
+     * @param n the root of the subtree
+     * @return the new root of the subtree
+     */
+    private RBNode balance(RBNode n) {
+        // a right-leaning red link is rotated to the left
+        if (isRed(n.right) && !isRed(n.left)) {
+            n = rotateLeft(n);
+        }
+        // two red links in a row are rotated into a temporary 4-node
+        if (isRed(n.left) && isRed(n.left.left)) {
+            n = rotateRight(n);
+        }
+        // a 4-node is split by passing its red link up to the parent
+        if (isRed(n.left) && isRed(n.right)) {
+            flipColors(n);
+        }
+        return update(n);
+    }
+
+    private boolean isRed(RBNode n) {
+        return n != null && n.color == RED;
+    }
+
+    private RBNode rotateLeft(RBNode n) {
+        RBNode x = n.right;
+        n.right = x.left;
+        x.left = n;
+        x.color = n.color;
+        n.color = RED;
+        x.size = n.size;
+        x.sum = n.sum;
+        update(n);
+        return x;
+    }
+
+    private RBNode rotateRight(RBNode n) {
+        RBNode x = n.left;
+        n.left = x.right;
+        x.right = n;
+        x.color = n.color;
+        n.color = RED;
+        x.size = n.size;
+        x.sum = n.sum;
+        update(n);
+        return x;
+    }
+
+    private void flipColors(RBNode n) {
+        n.color = !n.color;
+        n.left.color = !n.left.color;
+        n.right.color = !n.right.color;
+    }
+}
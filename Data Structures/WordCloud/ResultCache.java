@@ -0,0 +1,153 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+/**
+ * Keeps the word counts of earlier runs on disk, so counting the same corpus
+ * with the same stop list again only costs reading the files to hash them.
+ *
+ * An entry is keyed by a SHA-256 over the contents of the input files, the
+ * stop list files and the options that change the counts. It is stored as a
+ * WordCountSnapshot named after the key, so a hit loads straight into a
+ * SortedWordCountMap from which every listing and the cloud can be made.
+ *
+ * The directory is kept under a size limit by evicting the least recently
+ * used entries; a file's modification time records its last use.
+ */
+public class ResultCache {
+    private static final String SUFFIX = ".wcs";
+
+    private final File directory;
+    private final long maxBytes;
+
+    /**
+     * @param directory the cache directory, created if it doesn't exist
+     * @param maxBytes the most bytes of entries to keep
+     */
+    public ResultCache(String directory, long maxBytes) {
+        this.directory = new File(directory);
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Computes the key for counting the given inputs.
+     *
+     * @param options the settings that change the counts, e.g. "ngram=2"
+     * @param inputFiles the files that are counted
+     * @param stopFiles the stop list files
+     * @return the key, as 64 hex digits
+     * @throws IOException if one of the files can't be read
+     */
+    public static String key(String options, List<String> inputFiles, List<String> stopFiles) throws IOException {
+        MessageDigest digest = sha256();
+        digest.update(options.getBytes(StandardCharsets.UTF_8));
+        for (List<String> files : Arrays.asList(inputFiles, stopFiles)) {
+            // the number of files keeps the two lists from running into each other
+            digest.update((byte) files.size());
+            for (String fileName : files) {
+                digest.update(contentHash(fileName));
+            }
+        }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * @return the SHA-256 of a file's contents
+     */
+    private static byte[] contentHash(String fileName) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buf = new byte[1 << 16];
+        try (InputStream in = new FileInputStream(fileName)) {
+            int n;
+            while ((n = in.read(buf)) > 0) {
+                digest.update(buf, 0, n);
+            }
+        }
+        return digest.digest();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to have SHA-256
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * @return the file holding the entry for key
+     */
+    private File entry(String key) {
+        return new File(directory, key + SUFFIX);
+    }
+
+    /**
+     * Looks up the counts stored under key, and marks them as just used.
+     *
+     * @param key a key from key()
+     * @return the cached counts, or null if there are none (or the entry is unreadable)
+     */
+    public SortedWordCountMap get(String key) {
+        File file = entry(key);
+        if (!file.isFile()) {
+            return null;
+        }
+        try {
+            SortedWordCountMap map = WordCountSnapshot.load(file.getPath());
+            file.setLastModified(System.currentTimeMillis());
+            return map;
+        } catch (IOException e) {
+            // a damaged entry is dropped and counted again
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * Stores counts under key, then evicts the least recently used entries
+     * until the cache fits in its size limit again.
+     *
+     * @param key a key from key()
+     * @param map the counts to store
+     * @throws IOException if the entry can't be written
+     */
+    public void put(String key, WordCountMap map) throws IOException {
+        Files.createDirectories(directory.toPath());
+        // written under another name first, so a reader never sees half an entry
+        File temp = File.createTempFile("entry", ".tmp", directory);
+        try {
+            WordCountSnapshot.save(map, temp.getPath());
+            Files.move(temp.toPath(), entry(key).toPath(), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            temp.delete();
+        }
+        evict();
+    }
+
+    /**
+     * Deletes entries, least recently used first, until they fit in maxBytes.
+     */
+    private void evict() {
+        File[] entries = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (entries == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : entries) {
+            total += file.length();
+        }
+        Arrays.sort(entries, Comparator.comparingLong(File::lastModified));
+        for (int i = 0; total > maxBytes && i < entries.length; i++) {
+            total -= entries[i].length();
+            entries[i].delete();
+        }
+    }
+}
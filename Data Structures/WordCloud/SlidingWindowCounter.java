@@ -0,0 +1,138 @@
+import java.util.*;
+/**
+ * Counts the words of a stream over a sliding window: only the last maxWords
+ * words, or only the words seen in the last maxMillis milliseconds (or both).
+ *
+ * The words in the window are kept in arrival order in a ring buffer, with
+ * the time each arrived. Adding a word increments it in the map, and every
+ * word that falls out of the window is decremented there, so each word costs
+ * one increment and, later, one decrement: O(1) expected with a
+ * HashWordCountMap, O(log n) with a RedBlackWordCountMap. The map only holds
+ * the words currently in the window, so topK() gives the trending words.
+ */
+public class SlidingWindowCounter {
+    private final WordCountMap counts;
+    private final int maxWords;
+    private final long maxMillis;
+    // the window, oldest first: words[(head + i) % words.length] for i < length
+    private String[] words;
+    private long[] times;
+    private int head;
+    private int length;
+
+    /**
+     * @param counts an empty map, such as a HashWordCountMap
+     * @param maxWords the most words the window holds, or 0 for no limit
+     * @param maxMillis how long a word stays in the window, or 0 for no limit
+     */
+    public SlidingWindowCounter(WordCountMap counts, int maxWords, long maxMillis) {
+        if (maxWords <= 0 && maxMillis <= 0) {
+            throw new IllegalArgumentException("the window needs a word limit or a time limit");
+        }
+        this.counts = counts;
+        this.maxWords = maxWords;
+        this.maxMillis = maxMillis;
+        int capacity = maxWords > 0 ? Math.min(maxWords, 1024) : 1024;
+        words = new String[capacity];
+        times = new long[capacity];
+        head = 0;
+        length = 0;
+    }
+
+    /**
+     * Adds a word that arrives now.
+     *
+     * @param word the next word of the stream
+     */
+    public void add(String word) {
+        add(word, System.currentTimeMillis());
+    }
+
+    /**
+     * Adds a word that arrived at the given time, dropping the words that fall out
+     * of the window. Times must not go backwards.
+     *
+     * @param word the next word of the stream
+     * @param time when it arrived, in milliseconds
+     */
+    public void add(String word, long time) {
+        expire(time);
+        if (maxWords > 0 && length == maxWords) {
+            removeOldest();
+        }
+        if (length == words.length) {
+            grow();
+        }
+        int tail = (head + length) % words.length;
+        words[tail] = word;
+        times[tail] = time;
+        length++;
+        counts.incrementCount(word);
+    }
+
+    /**
+     * Drops the words that are older than the time limit at the given time, so
+     * the counts are up to date even when no words have arrived for a while.
+     *
+     * @param now the current time, in milliseconds
+     */
+    public void expire(long now) {
+        while (maxMillis > 0 && length > 0 && times[head] <= now - maxMillis) {
+            removeOldest();
+        }
+    }
+
+    /**
+     * Takes the oldest word out of the window and the counts.
+     */
+    private void removeOldest() {
+        counts.decrement(words[head]);
+        // let the String go once it is out of the window
+        words[head] = null;
+        head = (head + 1) % words.length;
+        length--;
+    }
+
+    /**
+     * Doubles the ring buffer, unwrapping it so the oldest word is first again.
+     */
+    private void grow() {
+        int capacity = words.length * 2;
+        if (maxWords > 0) {
+            capacity = Math.min(capacity, maxWords);
+        }
+        String[] newWords = new String[capacity];
+        long[] newTimes = new long[capacity];
+        for (int i = 0; i < length; i++) {
+            newWords[i] = words[(head + i) % words.length];
+            newTimes[i] = times[(head + i) % words.length];
+        }
+        words = newWords;
+        times = newTimes;
+        head = 0;
+    }
+
+    /**
+     * @return the number of words (not distinct words) in the window
+     */
+    public int size() {
+        return length;
+    }
+
+    /**
+     * @return the counts of the words in the window; changing them breaks the window
+     */
+    public WordCountMap counts() {
+        return counts;
+    }
+
+    /**
+     * Returns the k most frequent words in the window.
+     *
+     * @param k the number of words wanted
+     * @return at most k WordCounts sorted in decreasing order by count
+     */
+    public ArrayList<WordCount> topK(int k) {
+        return counts.topK(k);
+    }
+}
@@ -0,0 +1,303 @@
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+/**
+ * A WordCountMap held as two parallel arrays, the words in alphabetical order
+ * and their counts, as loaded from a WordCountSnapshot. Lookups are a binary
+ * search over the sorted words and the listings need no sorting at all.
+ *
+ * A map loaded from a snapshot keeps its words in the mapped file: lookups
+ * binary-search the UTF-8 bytes through the snapshot's offset index, and a
+ * word only becomes a String (kept in words[]) the first time it is read.
+ *
+ * Words that are not in the arrays yet are counted in a small HashWordCountMap
+ * on the side, and folded into the arrays with one linear merge the next time
+ * the words are listed, so adding words one at a time stays O(1) expected
+ * each instead of shifting the arrays for every new word.
+ */
+public class SortedWordCountMap implements WordCountMap {
+    private String[] words;
+    private int[] counts;
+    private int size;
+    // while the words are still in a mapped snapshot: word i is the UTF-8 bytes
+    // wordBytes[offsets[i], offsets[i + 1]); null once they are all Strings
+    private ByteBuffer wordBytes;
+    private IntBuffer offsets;
+    // words added since the arrays were built; none of them is in the arrays
+    private HashWordCountMap added;
+
+    /**
+     * Wraps the given arrays without copying them.
+     *
+     * @param words distinct words in alphabetical (String.compareTo) order
+     * @param counts counts[i] is the count of words[i]
+     * @param size the number of entries in use at the start of the arrays
+     */
+    public SortedWordCountMap(String[] words, int[] counts, int size) {
+        this.words = words;
+        this.counts = counts;
+        this.size = size;
+    }
+
+    /**
+     * Reads the words from a mapped snapshot as they are needed.
+     *
+     * @param wordBytes the words in UTF-8, one after another, in alphabetical order
+     * @param offsets size + 1 offsets: word i is wordBytes[offsets[i], offsets[i + 1])
+     * @param counts counts[i] is the count of word i
+     * @param size the number of words
+     */
+    SortedWordCountMap(ByteBuffer wordBytes, IntBuffer offsets, int[] counts, int size) {
+        this.words = new String[size];
+        this.counts = counts;
+        this.size = size;
+        this.wordBytes = wordBytes;
+        this.offsets = offsets;
+    }
+
+    /**
+     * @return the position of word in the arrays, or a negative number if it isn't there
+     */
+    private int indexOf(String word) {
+        if (wordBytes == null) {
+            return Arrays.binarySearch(words, 0, size, word);
+        }
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareTo(mid, word);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    /**
+     * Compares the i-th word with word in String.compareTo order. ASCII words
+     * are compared on the mapped bytes; a word with other characters is decoded.
+     *
+     * @return a negative number, zero or a positive number as the i-th word is less than, equal to or greater than word
+     */
+    private int compareTo(int i, String word) {
+        if (words[i] != null) {
+            return words[i].compareTo(word);
+        }
+        int start = offsets.get(i);
+        int length = offsets.get(i + 1) - start;
+        for (int j = 0; j < length; j++) {
+            int b = wordBytes.get(start + j);
+            if (b < 0) {
+                return decode(i).compareTo(word);
+            }
+            if (j == word.length()) {
+                return 1;
+            }
+            if (b != word.charAt(j)) {
+                return b - word.charAt(j);
+            }
+        }
+        return length - word.length();
+    }
+
+    public void insert(String word, int count) {
+        int i = indexOf(word);
+        if (i >= 0) {
+            counts[i] = count;
+        } else {
+            added().insert(word, count);
+        }
+    }
+
+    public int lookup(String word) {
+        int i = indexOf(word);
+        if (i >= 0) {
+            return counts[i];
+        }
+        return added == null ? 0 : added.lookup(word);
+    }
+
+    public int add(String word, int delta) {
+        int i = indexOf(word);
+        if (i >= 0) {
+            counts[i] += delta;
+            return counts[i];
+        }
+        return added().add(word, delta);
+    }
+
+    /**
+     * Removes word, in O(n) since the words after it move down one place.
+     * A map still reading its words from a snapshot makes all of them
+     * Strings first.
+     *
+     * @param word the word to be removed
+     * @return the count word had, or 0 if it wasn't in the map
+     */
+    public int remove(String word) {
+        int i = indexOf(word);
+        if (i < 0) {
+            return added == null ? 0 : added.remove(word);
+        }
+        for (int j = 0; j < size; j++) {
+            decode(j);
+        }
+        wordBytes = null;
+        offsets = null;
+        int count = counts[i];
+        System.arraycopy(words, i + 1, words, i, size - i - 1);
+        System.arraycopy(counts, i + 1, counts, i, size - i - 1);
+        size--;
+        words[size] = null;
+        return count;
+    }
+
+    /**
+     * @return the map of words that aren't in the arrays, created when the first one is added
+     */
+    private HashWordCountMap added() {
+        if (added == null) {
+            added = new HashWordCountMap();
+        }
+        return added;
+    }
+
+    /**
+     * Merges the words added one at a time into the sorted arrays.
+     */
+    private void flushAdded() {
+        if (added != null) {
+            HashWordCountMap pending = added;
+            added = null;
+            merge(pending);
+        }
+    }
+
+    public int size() {
+        return size + (added == null ? 0 : added.size());
+    }
+
+    /**
+     * @param i a position from 0 to size() - 1
+     * @return the i-th word alphabetically
+     */
+    String word(int i) {
+        flushAdded();
+        return decode(i);
+    }
+
+    /**
+     * @return the i-th word of the arrays, made into a String the first time it is read
+     */
+    private String decode(int i) {
+        if (words[i] == null) {
+            int start = offsets.get(i);
+            byte[] bytes = new byte[offsets.get(i + 1) - start];
+            wordBytes.get(start, bytes);
+            words[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return words[i];
+    }
+
+    /**
+     * @param i a position from 0 to size() - 1
+     * @return the count of the i-th word
+     */
+    int count(int i) {
+        flushAdded();
+        return counts[i];
+    }
+
+    /**
+     * Adds every count in other to this map in O(n + m), by merging the two
+     * alphabetical sequences into new arrays.
+     *
+     * @param other the counts to merge in (unchanged)
+     */
+    public void merge(WordCountMap other) {
+        flushAdded();
+        SortedWordCountMap merged = merge(this, other);
+        words = merged.words;
+        counts = merged.counts;
+        size = merged.size;
+        wordBytes = null;
+        offsets = null;
+    }
+
+    /**
+     * Merge-joins two maps in alphabetical order: words found in both get the
+     * sum of their counts. Both maps are walked once, so this is O(n + m) plus
+     * the cost of iterating them (a HashWordCountMap sorts its words first).
+     *
+     * @param a the first map
+     * @param b the second map
+     * @return a new map holding the combined counts
+     */
+    public static SortedWordCountMap merge(WordCountMap a, WordCountMap b) {
+        String[] words = new String[a.size() + b.size()];
+        int[] counts = new int[words.length];
+        int size = 0;
+        Iterator<WordCount> left = a.iterator();
+        Iterator<WordCount> right = b.iterator();
+        WordCount x = left.hasNext() ? left.next() : null;
+        WordCount y = right.hasNext() ? right.next() : null;
+        while (x != null || y != null) {
+            int cmp = x == null ? 1 : y == null ? -1 : x.word.compareTo(y.word);
+            if (cmp <= 0) {
+                words[size] = x.word;
+                counts[size] = x.count;
+            } else {
+                words[size] = y.word;
+                counts[size] = y.count;
+            }
+            if (cmp == 0) {
+                counts[size] += y.count;
+            }
+            if (cmp <= 0) {
+                x = left.hasNext() ? left.next() : null;
+            }
+            if (cmp >= 0) {
+                y = right.hasNext() ? right.next() : null;
+            }
+            size++;
+        }
+        return new SortedWordCountMap(words, counts, size);
+    }
+
+    public ArrayList<WordCount> getWordCountsByWord() {
+        flushAdded();
+        ArrayList<WordCount> myWordCountArray = new ArrayList<WordCount>(size);
+        forEachWord((word, count) -> myWordCountArray.add(new WordCount(word, count)));
+        return myWordCountArray;
+    }
+
+    /**
+     * Visits every word in alphabetical order.
+     *
+     * @param action receives each word and its count
+     */
+    public void forEachWord(ObjIntConsumer<String> action) {
+        flushAdded();
+        for (int i = 0; i < size; i++) {
+            action.accept(decode(i), counts[i]);
+        }
+    }
+
+    /**
+     * Returns a Spliterator over the words in alphabetical order, which splits by index range.
+     *
+     * @return a Spliterator over the words of this map
+     */
+    public Spliterator<WordCount> spliterator() {
+        flushAdded();
+        return IntStream.range(0, size).mapToObj(i -> new WordCount(decode(i), counts[i])).spliterator();
+    }
+}
@@ -0,0 +1,127 @@
+import java.io.*;
+import java.util.*;
+/**
+ * A set of stop words (words like "the" and "of" that are left out of the counts).
+ * The words are kept in a HashSet, so checking a word costs the same no matter
+ * how long the stop lists are. They are also kept in a small open-addressing
+ * table hashed like String.hashCode, so a word still in a char buffer can be
+ * checked without making a String of it first.
+ */
+public class StopWords {
+    /** the stop list WordCounter uses when no other list is given */
+    public static final String DEFAULT_FILE = "StopWords.txt";
+
+    private HashSet<String> words;
+    // the same words by slot, at most half full; null marks an empty slot
+    private String[] table;
+
+    /**
+     * creates an empty stop list
+     */
+    public StopWords() {
+        words = new HashSet<>();
+        table = new String[64];
+    }
+
+    /**
+     * creates a stop list from the given files
+     *
+     * @param fileNames stop list files with one word per line
+     * @return the combined stop list
+     * @throws IOException if one of the files cannot be read
+     */
+    public static StopWords fromFiles(List<String> fileNames) throws IOException {
+        StopWords stopWords = new StopWords();
+        for (String fileName : fileNames) {
+            stopWords.addFile(fileName);
+        }
+        return stopWords;
+    }
+
+    /**
+     * adds every word in a file (one per line) to the stop list
+     *
+     * @param fileName the stop list file
+     * @throws IOException if the file cannot be read
+     */
+    public void addFile(String fileName) throws IOException {
+        try (BufferedReader bufferedReader = new BufferedReader(new FileReader(fileName))) {
+            String line;
+            while ((line = bufferedReader.readLine()) != null) {
+                add(line);
+            }
+        }
+    }
+
+    /**
+     * adds a single word to the stop list; blank words are ignored
+     *
+     * @param word the word to add
+     */
+    public void add(String word) {
+        word = word.trim();
+        if (!word.isEmpty() && words.add(word)) {
+            if (words.size() * 2 > table.length) {
+                String[] old = table;
+                table = new String[old.length * 2];
+                for (String stopWord : old) {
+                    if (stopWord != null) {
+                        place(stopWord);
+                    }
+                }
+            }
+            place(word);
+        }
+    }
+
+    /**
+     * Puts a word in the first free slot of its probe sequence.
+     */
+    private void place(String word) {
+        int i = word.hashCode() & (table.length - 1);
+        while (table[i] != null) {
+            i = (i + 1) & (table.length - 1);
+        }
+        table[i] = word;
+    }
+
+    /**
+     * @param word a word from the text
+     * @return true if word should be left out of the counts
+     */
+    public boolean contains(String word) {
+        return words.contains(word);
+    }
+
+    /**
+     * @param word a buffer holding a word from the text
+     * @param length the length of the word at the start of the buffer
+     * @return true if the word should be left out of the counts
+     */
+    public boolean contains(char[] word, int length) {
+        int h = 0;
+        for (int j = 0; j < length; j++) {
+            h = 31 * h + word[j];
+        }
+        for (int i = h & (table.length - 1); table[i] != null; i = (i + 1) & (table.length - 1)) {
+            String stopWord = table[i];
+            if (stopWord.length() == length && stopWord.hashCode() == h) {
+                int j = 0;
+                while (j < length && stopWord.charAt(j) == word[j]) {
+                    j++;
+                }
+                if (j == length) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of stop words
+     */
+    public int size() {
+        return words.size();
+    }
+}
@@ -0,0 +1,35 @@
+/**
+ * A light stemmer that folds plurals into their singular, using Harman's
+ * "S" stemmer rules, so that "stories" and "story" or "states" and "state"
+ * are counted as one word. Only the first rule that matches is used:
+ *   -ies -> -y   unless the word ends in -eies or -aies
+ *   -es  -> -e   unless the word ends in -aes, -ees or -oes
+ *   -s   -> (removed)  unless the word ends in -us or -ss
+ * Words of three letters or fewer are left alone, so "was" and "has" keep their s.
+ */
+public class SuffixStemmer implements TokenFilter {
+    public int apply(char[] word, int length) {
+        if (length <= 3 || word[length - 1] != 's') {
+            return length;
+        }
+        char last2 = word[length - 2];
+        char last3 = word[length - 3];
+        if (last3 == 'i' && last2 == 'e') {
+            if (length >= 4 && (word[length - 4] == 'e' || word[length - 4] == 'a')) {
+                return length;
+            }
+            word[length - 3] = 'y';
+            return length - 2;
+        }
+        if (last2 == 'e') {
+            if (last3 == 'a' || last3 == 'e' || last3 == 'o') {
+                return length;
+            }
+            return length - 1;
+        }
+        if (last2 == 'u' || last2 == 's') {
+            return length;
+        }
+        return length - 1;
+    }
+}
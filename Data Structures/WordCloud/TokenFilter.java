@@ -0,0 +1,93 @@
+import java.util.*;
+/**
+ * One stage of the normalization a WordTokenizer applies to every word before
+ * handing it on. A stage works in place on the tokenizer's reusable char
+ * buffer, so a chain of stages costs no allocation; only a word that gets
+ * through every stage is turned into a String.
+ *
+ * Stages are named on the command line as a comma-separated list, applied
+ * in the order given:
+ *   apostrophes   - drop a possessive 's and remove other apostrophes (don't -> dont)
+ *   stop          - drop stop words
+ *   stem          - strip plural endings (see SuffixStemmer)
+ *   minlength=n   - drop words shorter than n letters
+ */
+public interface TokenFilter {
+    /**
+     * Rewrites the word word[0, length) in place.
+     *
+     * @param word the word's characters, lowercase letters and perhaps apostrophes
+     * @param length the word's length, at least 1
+     * @return the new length (no longer than before), or 0 to drop the word
+     */
+    int apply(char[] word, int length);
+
+    /**
+     * @param stopWords the words to drop
+     * @return a stage that drops the stop words
+     */
+    static TokenFilter stopWords(StopWords stopWords) {
+        return (word, length) -> stopWords.contains(word, length) ? 0 : length;
+    }
+
+    /**
+     * @param min the shortest word to keep
+     * @return a stage that drops words with fewer than min characters
+     */
+    static TokenFilter minLength(int min) {
+        return (word, length) -> length >= min ? length : 0;
+    }
+
+    /**
+     * Words only hold apostrophes if the tokenizer was told to keep them
+     * between letters, which WordTokenizer.fromSpec does for this stage.
+     *
+     * @return a stage that drops a final 's and removes the other apostrophes
+     */
+    static TokenFilter apostrophes() {
+        return (word, length) -> {
+            if (length >= 2 && word[length - 2] == '\'' && word[length - 1] == 's') {
+                length -= 2;
+            }
+            int kept = 0;
+            for (int i = 0; i < length; i++) {
+                if (word[i] != '\'') {
+                    word[kept++] = word[i];
+                }
+            }
+            return kept;
+        };
+    }
+
+    /**
+     * Builds the stages named in a comma-separated list.
+     *
+     * @param spec the stage names, e.g. "apostrophes,stop,stem,minlength=3"
+     * @param stopWords the stop list for the stop stage
+     * @return the stages, in order
+     * @throws IllegalArgumentException if a stage name is not known
+     */
+    static TokenFilter[] parse(String spec, StopWords stopWords) {
+        ArrayList<TokenFilter> filters = new ArrayList<>();
+        for (String name : spec.split(",")) {
+            name = name.trim();
+            if (name.equals("apostrophes")) {
+                filters.add(apostrophes());
+            } else if (name.equals("stop")) {
+                filters.add(stopWords(stopWords));
+            } else if (name.equals("stem")) {
+                filters.add(new SuffixStemmer());
+            } else if (name.startsWith("minlength=")) {
+                try {
+                    filters.add(minLength(Integer.parseInt(name.substring("minlength=".length()))));
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("bad minimum length in \"" + name + "\"");
+                }
+            } else if (!name.isEmpty()) {
+                throw new IllegalArgumentException("unknown pipeline stage \"" + name
+                        + "\" (apostrophes, stop, stem or minlength=n)");
+            }
+        }
+        return filters.toArray(new TokenFilter[0]);
+    }
+}
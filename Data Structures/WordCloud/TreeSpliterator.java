@@ -0,0 +1,87 @@
+import java.util.*;
+import java.util.function.*;
+/**
+ * A lazy in-order Spliterator over the nodes of a binary search tree, used by
+ * the tree-based WordCountMaps. It walks the tree with an explicit stack (so it
+ * never recurses, even on a degenerate BST) and only creates the WordCount for
+ * the node it is currently visiting. Splitting hands off the left part of the
+ * tree, so a parallel stream works on separate subtrees.
+ *
+ * The tree must not be changed while the Spliterator is in use.
+ *
+ * @param <N> the tree's node type
+ */
+class TreeSpliterator<N> implements Spliterator<WordCount> {
+    // a whole subtree that comes before everything on the stack (or null)
+    private N subtree;
+    // nodes still to be visited; each one is followed by its right subtree
+    private final ArrayDeque<N> stack;
+    private long estimate;
+    private final UnaryOperator<N> left;
+    private final UnaryOperator<N> right;
+    private final Function<N, WordCount> entry;
+
+    /**
+     * @param root the root of the tree (or subtree) to walk
+     * @param estimate the number of nodes in the tree, or an estimate of it
+     * @param left gives a node's left child
+     * @param right gives a node's right child
+     * @param entry makes the WordCount for a node
+     */
+    TreeSpliterator(N root, long estimate, UnaryOperator<N> left, UnaryOperator<N> right,
+                    Function<N, WordCount> entry) {
+        this.subtree = root;
+        this.stack = new ArrayDeque<>();
+        this.estimate = estimate;
+        this.left = left;
+        this.right = right;
+        this.entry = entry;
+    }
+
+    public boolean tryAdvance(Consumer<? super WordCount> action) {
+        // the next node is the leftmost node of the pending subtree, or else the top of the stack
+        for (N n = subtree; n != null; n = left.apply(n)) {
+            stack.push(n);
+        }
+        subtree = null;
+        if (stack.isEmpty()) {
+            return false;
+        }
+        N n = stack.pop();
+        subtree = right.apply(n);
+        action.accept(entry.apply(n));
+        return true;
+    }
+
+    public Spliterator<WordCount> trySplit() {
+        if (subtree != null && left.apply(subtree) != null) {
+            // hand off the left subtree, keeping its parent and the parent's right subtree
+            N prefix = left.apply(subtree);
+            stack.push(subtree);
+            subtree = null;
+            estimate /= 2;
+            return new TreeSpliterator<>(prefix, estimate, left, right, entry);
+        }
+        if (subtree != null) {
+            // a subtree without a left child is just its root followed by its right subtree
+            stack.push(subtree);
+            subtree = null;
+        }
+        if (stack.size() >= 2) {
+            // hand off the next node on the stack together with its right subtree
+            TreeSpliterator<N> prefix = new TreeSpliterator<>(null, estimate / 2, left, right, entry);
+            prefix.stack.push(stack.pop());
+            estimate -= prefix.estimate;
+            return prefix;
+        }
+        return null;
+    }
+
+    public long estimateSize() {
+        return estimate;
+    }
+
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+}
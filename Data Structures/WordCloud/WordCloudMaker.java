@@ -43,13 +43,32 @@ public class WordCloudMaker {
      * @param htmlName the filename in which to store the HTML
      */
     public static void createWordCloudHTML(String title, List<WordCount> wordCountList, String htmlName) {
-        String htmlStr = getWordCloudHTML(title, wordCountList);
         try {
-            PrintStream outstream = new PrintStream(new FileOutputStream(htmlName));
-            outstream.print(htmlStr);
+            writeWordCloudFile(title, wordCountList, htmlName);
         } catch (FileNotFoundException e) {
             System.err.println(e);
             System.exit(1);
+        } catch (IOException e) {
+            System.err.println(e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Writes a word cloud to a file like createWordCloudHTML(), but leaves a file that
+     * can't be written to the caller instead of exiting, so a batch can skip it.
+     *
+     * NOTE: This method reorders wordCountList.
+     *
+     * @param title the desired title for the word cloud.
+     * @param wordCountList the list of (word, frequency) pairs for which a word cloud is desired.
+     * @param htmlName the filename in which to store the HTML
+     * @throws IOException if the file can't be written
+     */
+    public static void writeWordCloudFile(String title, List<WordCount> wordCountList, String htmlName)
+            throws IOException {
+        try (Writer out = new BufferedWriter(new FileWriter(htmlName), 1 << 16)) {
+            writeWordCloudHTML(title, wordCountList, out);
         }
     }
 
@@ -65,6 +84,30 @@ public class WordCloudMaker {
      * @param wordCountList the list of (word, frequency) pairs for which a word cloud is desired.
      */
     public static String getWordCloudHTML(String title, List<WordCount> wordCountList) {
+        StringWriter out = new StringWriter();
+        try {
+            writeWordCloudHTML(title, wordCountList, out);
+        } catch (IOException e) {
+            // a StringWriter never throws
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Writes a word cloud based on the (word, frequency) pairs in wordCountList to out.
+     * The template and one span per word are written straight to out, so nothing
+     * the size of the document is built in memory. The title and the words are
+     * HTML-escaped.
+     *
+     * NOTE: This method reorders wordCountList.
+     *
+     * @param title the desired title for the word cloud.
+     * @param wordCountList the list of (word, frequency) pairs for which a word cloud is desired.
+     * @param out where the HTML is written (not closed by this method)
+     * @throws IOException if writing to out fails
+     */
+    public static void writeWordCloudHTML(String title, List<WordCount> wordCountList, Writer out) throws IOException {
         // Get the maximum and minimum frequencies for the words in the wordCountList.
         int maximumFrequency = 0;
         int minimumFrequency = Integer.MAX_VALUE;
@@ -86,33 +129,66 @@ public class WordCloudMaker {
             wordCountList.set(indexOfItemToSwap, tempWordCount);
         }
 
-        // Create a String(Joiner) consisting of HTML encoding of the words in wordCountList,
-        // sized and colored appropriately for their frequencies.
-        StringJoiner wordsInHTML = new StringJoiner("");
-        for (WordCount wordCount : wordCountList) {
-            wordsInHTML.add(makeHTMLWord(wordCount, maximumFrequency, minimumFrequency));
+        // Copy the template, writing the title in place of TITLE and the words,
+        // sized and colored appropriately for their frequencies, in place of WORDS.
+        int from = 0;
+        while (from < HTML_TEMPLATE.length()) {
+            int titleAt = HTML_TEMPLATE.indexOf("TITLE", from);
+            int wordsAt = HTML_TEMPLATE.indexOf("WORDS", from);
+            int next = titleAt < 0 ? wordsAt : wordsAt < 0 ? titleAt : Math.min(titleAt, wordsAt);
+            if (next < 0) {
+                next = HTML_TEMPLATE.length();
+            }
+            out.write(HTML_TEMPLATE, from, next - from);
+            if (next == titleAt) {
+                writeEscaped(title, out);
+            } else if (next == wordsAt) {
+                for (WordCount wordCount : wordCountList) {
+                    writeHTMLWord(wordCount, maximumFrequency, minimumFrequency, out);
+                }
+            }
+            from = next + 5;
         }
-
-        // Add the HTML code to surround the words with a box
-        String document = HTML_TEMPLATE.replaceAll("TITLE", title);
-        //System.out.println(document);
-        document = document.replaceAll("WORDS", wordsInHTML.toString());
-
-        return document;
     }
 
     /**
-     * Returns an HTML version of the specified WordCount.
+     * Writes an HTML version of the specified WordCount.
      */
-    private static String makeHTMLWord(WordCount wordCount, int maximumFrequency, int minimumFrequency) {
+    private static void writeHTMLWord(WordCount wordCount, int maximumFrequency, int minimumFrequency,
+                                      Writer out) throws IOException {
         final int maximumFontSize = 96;
         final int minimumFontSize = 14;
         double ratio = (double)(wordCount.count - minimumFrequency)/(double)(maximumFrequency - minimumFrequency);
         int fontSize = (int)(maximumFontSize * ratio + (1 - ratio) * minimumFontSize);
         String color = HTML_COLORS[(int)((ratio / 1.01) * HTML_COLORS.length)];
-        String wordString = "<span style=\"color:#" + color + ";font-size:";
-        wordString += fontSize + "px;\">&nbsp";
-        wordString += wordCount.word + "&nbsp</span>\n";
-        return wordString;
+        out.write("<span style=\"color:#");
+        out.write(color);
+        out.write(";font-size:");
+        out.write(Integer.toString(fontSize));
+        out.write("px;\">&nbsp");
+        writeEscaped(wordCount.word, out);
+        out.write("&nbsp</span>\n");
+    }
+
+    /**
+     * Writes text with the characters that are special in HTML escaped.
+     */
+    private static void writeEscaped(String text, Writer out) throws IOException {
+        int start = 0;
+        for (int i = 0; i < text.length(); i++) {
+            String entity;
+            switch (text.charAt(i)) {
+                case '&': entity = "&amp;"; break;
+                case '<': entity = "&lt;"; break;
+                case '>': entity = "&gt;"; break;
+                case '"': entity = "&quot;"; break;
+                case '\'': entity = "&#39;"; break;
+                default: continue;
+            }
+            out.write(text, start, i - start);
+            out.write(entity);
+            start = i + 1;
+        }
+        out.write(text, start, text.length() - start);
     }
 }
\ No newline at end of file
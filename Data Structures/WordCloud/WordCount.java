@@ -8,6 +8,8 @@
  * Much of this assignment was coded together with Joey
  */
 
+import java.util.*;
+
 /**
  * WordCount is an object that is useful in storing the information based in the ADT within an array.
  */
@@ -16,11 +18,11 @@ public class WordCount implements Comparable<WordCount> {
     public int count;
     /**
      * @param other the other WordCount object to be compared to
-     * @return returns the difference between the counts of the two objects
+     * @return negative if this count is larger, positive if it is smaller, 0 if they are equal
      */
     public int compareTo(WordCount other){
-        return other.count - count;
-        //compareTo method returns the difference of two counts
+        return Integer.compare(other.count, count);
+        //compares the counts without subtracting them, which could overflow
     }
     public WordCount(String word, int count){
         this.word = word;
@@ -30,4 +32,57 @@ public class WordCount implements Comparable<WordCount> {
         String z = word+": "+count;
         return z;
     }
+
+    /**
+     * Sorts WordCounts in decreasing order by count in linear time, keeping the
+     * original order among equal counts (so an alphabetical list stays alphabetical
+     * within each count). When the counts span a small range this is a counting
+     * sort, O(n + maxCount); otherwise it is a radix sort on the count's 4 bytes.
+     *
+     * @param wordCounts the WordCounts to sort (unchanged)
+     * @return a new list in decreasing order by count
+     */
+    public static ArrayList<WordCount> sortByCount(List<WordCount> wordCounts) {
+        WordCount[] arr = wordCounts.toArray(new WordCount[0]);
+        if (arr.length < 2) {
+            return new ArrayList<WordCount>(Arrays.asList(arr));
+        }
+        int max = Integer.MIN_VALUE;
+        int min = Integer.MAX_VALUE;
+        for (WordCount wordCount : arr) {
+            max = Math.max(max, wordCount.count);
+            min = Math.min(min, wordCount.count);
+        }
+        // key = max - count, so sorting keys upwards sorts counts downwards
+        long range = (long) max - min + 1;
+        if (range <= 2L * arr.length + 1024) {
+            arr = sortByKey(arr, max, 0, (int) range);
+        } else {
+            for (int shift = 0; shift < 32 && (range - 1) >>> shift != 0; shift += 8) {
+                arr = sortByKey(arr, max, shift, 256);
+            }
+        }
+        return new ArrayList<WordCount>(Arrays.asList(arr));
+    }
+
+    /**
+     * One stable counting-sort pass on the digit ((max - count) >>> shift) % buckets.
+     *
+     * @return a new array sorted by that digit
+     */
+    private static WordCount[] sortByKey(WordCount[] arr, int max, int shift, int buckets) {
+        int mask = buckets == 256 ? 0xff : -1;
+        int[] start = new int[buckets + 1];
+        for (WordCount wordCount : arr) {
+            start[((max - wordCount.count) >>> shift & mask) + 1]++;
+        }
+        for (int i = 0; i < buckets; i++) {
+            start[i + 1] += start[i];
+        }
+        WordCount[] sorted = new WordCount[arr.length];
+        for (WordCount wordCount : arr) {
+            sorted[start[(max - wordCount.count) >>> shift & mask]++] = wordCount;
+        }
+        return sorted;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,267 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+/**
+ * Times the WordCountMap implementations against each other.
+ * Each timing counts every word and then builds the alphabetical listing.
+ *
+ * Usage: java WordCountBenchmark [textfile]   (defaults to Sherlock.txt)
+ *
+ * Each case is run a few times and the best time is reported, so that
+ * the JIT has warmed up before the numbers that count.
+ */
+public class WordCountBenchmark {
+    private static final int RUNS = 5;
+    private static final String[] BACKENDS = {"bst", "redblack", "hash", "compact", "concurrent"};
+
+    /**
+     * reads a text file into a list of lowercase words, the same way WordCounter does
+     * (but without removing stop words)
+     *
+     * @param fileName the text file to read
+     * @return every word of the file in order
+     */
+    private static ArrayList<String> readWords(String fileName) throws IOException {
+        ArrayList<String> words = new ArrayList<>();
+        BufferedReader bufferedReader = new BufferedReader(new FileReader(fileName));
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            line = line.toLowerCase().replaceAll("[^a-zA-Z]", " ");
+            for (String word : line.split("\\s+")) {
+                if (!word.equals("")) {
+                    words.add(word);
+                }
+            }
+        }
+        bufferedReader.close();
+        return words;
+    }
+
+    /**
+     * runs the given case RUNS times and prints the best time in milliseconds
+     *
+     * @param label what is being timed
+     * @param run the code to time
+     */
+    private static void time(String label, Runnable run) {
+        long best = Long.MAX_VALUE;
+        try {
+            for (int i = 0; i < RUNS; i++) {
+                long start = System.nanoTime();
+                run.run();
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            System.out.printf("  %-40s %10.2f ms%n", label, best / 1e6);
+        } catch (StackOverflowError e) {
+            System.out.printf("  %-40s %13s%n", label, "stack overflow");
+        }
+    }
+
+    /**
+     * runs the given case RUNS times and prints the best rate in MB of text per second
+     *
+     * @param label what is being timed
+     * @param bytes the size of the text each run goes through
+     * @param run the code to time
+     */
+    private static void throughput(String label, long bytes, Runnable run) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            run.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("  %-40s %10.1f MB/s%n", label, bytes / 1e6 / (best / 1e9));
+    }
+
+    /**
+     * times splitting a file into words and counting them: through a Reader and
+     * WordTokenizer as WordCounter.load does (plain, and with every pipeline stage),
+     * and on the raw bytes with ByteTokenizer. The file is read into memory first,
+     * so disk speed doesn't count.
+     *
+     * @param fileName the text file to tokenize
+     */
+    private static void compareTokenizers(String fileName) throws IOException {
+        byte[] text = Files.readAllBytes(Paths.get(fileName));
+        StopWords none = new StopWords();
+        System.out.println(fileName + " (" + text.length + " bytes), tokenize and count");
+        throughput("WordTokenizer (Reader)", text.length, () -> {
+            HashWordCountMap map = new HashWordCountMap();
+            try (Reader reader = new InputStreamReader(new ByteArrayInputStream(text))) {
+                new WordTokenizer().tokenize(reader, map::incrementCount);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        StopWords stopWords = StopWords.fromFiles(Collections.singletonList(StopWords.DEFAULT_FILE));
+        String pipeline = "apostrophes,stop,stem,minlength=3";
+        throughput("WordTokenizer, every pipeline stage", text.length, () -> {
+            HashWordCountMap map = new HashWordCountMap();
+            try (Reader reader = new InputStreamReader(new ByteArrayInputStream(text))) {
+                WordTokenizer.fromSpec(pipeline, stopWords).tokenize(reader, map::incrementCount);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        throughput("ByteTokenizer", text.length, () -> {
+            ByteTokenizer tokenizer = new ByteTokenizer(new ByteWordCountMap(none));
+            tokenizer.feed(text, 0, text.length);
+            tokenizer.finish();
+        });
+    }
+
+    /**
+     * counts the given word list once with every WordCountMap backend
+     *
+     * @param title heading for this group of results
+     * @param words the words to count, in arrival order
+     */
+    private static void compareMaps(String title, List<String> words) {
+        System.out.println(title + " (" + words.size() + " words)");
+        for (String backend : BACKENDS) {
+            time(backend, () -> {
+                WordCountMap map = WordCountMap.create(backend);
+                for (String word : words) {
+                    map.incrementCount(word);
+                }
+                map.getWordCountsByWord();
+            });
+        }
+    }
+
+    /**
+     * times filtering the given words against a stop list held in an ArrayList
+     * (a linear scan per word) and in a StopWords hash set
+     *
+     * @param title heading for this group of results
+     * @param words the words to filter
+     * @param stopList the stop words
+     */
+    private static void compareStopFilters(String title, List<String> words, List<String> stopList) {
+        System.out.println(title + " (" + words.size() + " words, " + stopList.size() + " stop words)");
+        ArrayList<String> stopArray = new ArrayList<>(stopList);
+        StopWords stopWords = new StopWords();
+        for (String word : stopList) {
+            stopWords.add(word);
+        }
+        int[] kept = new int[1];
+        time("ArrayList.contains", () -> {
+            kept[0] = 0;
+            for (String word : words) {
+                if (!stopArray.contains(word)) {
+                    kept[0]++;
+                }
+            }
+        });
+        time("StopWords.contains", () -> {
+            kept[0] = 0;
+            for (String word : words) {
+                if (!stopWords.contains(word)) {
+                    kept[0]++;
+                }
+            }
+        });
+    }
+
+    /**
+     * prints roughly how much heap each backend uses to hold the given words
+     *
+     * @param title heading for this group of results
+     * @param words the words to count
+     */
+    private static void compareMemory(String title, List<String> words) {
+        System.out.println(title + ", heap used after counting");
+        Runtime runtime = Runtime.getRuntime();
+        for (String backend : BACKENDS) {
+            System.gc();
+            long before = runtime.totalMemory() - runtime.freeMemory();
+            WordCountMap map = WordCountMap.create(backend);
+            for (String word : words) {
+                // copy the word so the map doesn't share Strings with the word list
+                map.incrementCount(new String(word.toCharArray()));
+            }
+            System.gc();
+            long after = runtime.totalMemory() - runtime.freeMemory();
+            System.out.printf("  %-40s %10.2f MB (%d words)%n", backend, (after - before) / 1e6, map.size());
+        }
+    }
+
+    /**
+     * times ConcurrentWordCountMap with a growing number of writer threads,
+     * each counting its own share of the words into the one shared map
+     *
+     * @param title heading for this group of results
+     * @param words the words to count
+     */
+    private static void compareWriters(String title, List<String> words) {
+        System.out.println(title + " (" + words.size() + " words, " + Runtime.getRuntime().availableProcessors()
+                + " cores), shared ConcurrentWordCountMap");
+        for (int threads = 1; threads <= 16; threads *= 2) {
+            int writers = threads;
+            time(writers + " writer threads", () -> {
+                ConcurrentWordCountMap map = new ConcurrentWordCountMap();
+                Thread[] workers = new Thread[writers];
+                for (int t = 0; t < writers; t++) {
+                    List<String> share = words.subList(t * words.size() / writers, (t + 1) * words.size() / writers);
+                    workers[t] = new Thread(() -> {
+                        for (String word : share) {
+                            map.incrementCount(word);
+                        }
+                    });
+                    workers[t].start();
+                }
+                try {
+                    for (Thread worker : workers) {
+                        worker.join();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String fileName = args.length > 0 ? args[0] : "Sherlock.txt";
+        ArrayList<String> words = readWords(fileName);
+        compareMaps(fileName, words);
+        if (args.length == 0) {
+            compareMaps("FederalistPapers.txt", readWords("FederalistPapers.txt"));
+        }
+
+        // every distinct word once, in alphabetical order: the worst case for the plain BST
+        ArrayList<String> sorted = new ArrayList<>(new TreeSet<>(words));
+        compareMaps(fileName + ", distinct words sorted", sorted);
+
+        // a bigger sorted glossary, as produced by alphabetized vocabulary lists
+        ArrayList<String> glossary = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            glossary.add(String.format("word%06d", i));
+        }
+        compareMaps("generated sorted glossary", glossary);
+
+        ArrayList<String> vocabulary = new ArrayList<>();
+        for (int i = 0; i < 500000; i++) {
+            // scrambled so the words don't arrive in sorted order
+            vocabulary.add(Integer.toString((i * 0x9E3779B9) & 0x7fffffff, 36));
+        }
+        compareMemory("500000 distinct words", vocabulary);
+        compareWriters(fileName, words);
+        compareTokenizers("FederalistPapers.txt");
+
+        // stop word filtering, with the usual list and with a big list
+        ArrayList<String> stopList = new ArrayList<>();
+        BufferedReader bufferedReader = new BufferedReader(new FileReader(StopWords.DEFAULT_FILE));
+        String line;
+        while ((line = bufferedReader.readLine()) != null) {
+            stopList.add(line.trim());
+        }
+        bufferedReader.close();
+        compareStopFilters(fileName + ", " + StopWords.DEFAULT_FILE, words, stopList);
+        for (int i = 0; i < 2000 && i < sorted.size(); i++) {
+            stopList.add(sorted.get(i * sorted.size() / 2000));
+        }
+        compareStopFilters(fileName + ", big stop list", words, stopList);
+    }
+}
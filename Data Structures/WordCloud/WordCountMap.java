@@ -1,229 +1,233 @@
-import java.lang.reflect.Array;
 import java.util.*;
-import java.lang.*;
-import java.io.*;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.*;
 /**
- * A class that includes a BST and a methods that can visit that BST in a certain order
- * and store that traversal in an array.
- * @author Eric Alexander
- * @author Joey Cook
- * @author Paul Reich
+ * A table of (word, count) pairs. WordCounter only talks to this interface, so
+ * the structure that keeps the counts can be chosen at run time:
+ *   bst        - BSTWordCountMap, a plain binary search tree
+ *   redblack   - RedBlackWordCountMap, a balanced binary search tree
+ *   hash       - HashWordCountMap, an open-addressing hash table
+ *   compact    - CompactWordCountMap, a red-black tree stored in primitive arrays
+ *   concurrent - ConcurrentWordCountMap, a thread-safe skip list
+ *
+ * Iterating over a WordCountMap (or streaming it) visits its words in
+ * alphabetical order; the tree maps do this lazily, without building a list.
  */
-public class WordCountMap {
-    // root of BST
-    private BSTNode root;
-    private class BSTNode {
-        // BSTNode's word, count as well as its left and right nodes
-        private String word;
-        private int count;
-        private BSTNode left;
-        private BSTNode right;
-        /**
-         * gives access to a BSTNode's word and or count
-         * @param word the BSTNode's word
-         * @param count the BSTNode's count
-         */
-        public BSTNode(String word, int count) {
-            this.word = word;
-            this.count = count;
-            left = null;
-            right = null;
-        }
-        /**
-         * method to convert node to string
-         */
-        public String toString() {
-            return String.format("{%s -> %s}", word, count);
-        }
-    }
-    /**
-     * sets WordCountMap's root to null
-     */
-    public WordCountMap() {
-        root = null;
-    }
-
+public interface WordCountMap extends Iterable<WordCount> {
     /**
      * Insert given word-count pair.
-     * If word is already in the tree, replace its count.
+     * If word is already in the map, replace its count.
      *
      * @param word the word to be inserted
      * @param count the count to be associated with word
      */
-    public void insert(String word , int count) {
-        root = insert(root, word, count);
-    }
-
-    /**
-     * Helper method to insert()
-     * Inserts given word-count pair to tree
-     * rooted at given node.
-     *
-     * @param n root of subtree to be inserted into
-     * @param word the word to be inserted
-     * @param count count to be associated with word
-     * @return the new root of the given subtree
-     */
-    private BSTNode insert(BSTNode n, String word, int count) {
-        if (n == null) {
-            return new BSTNode(word, count);
-        } else if (word.compareTo(n.word) < 0) {
-            n.left = insert(n.left, word, count);
-            return n;
-        } else if (word.compareTo(n.word) > 0) {
-            n.right = insert(n.right, word, count);
-            return n;
-        } else {
-            n.count = count;
-            return n;
-        }
-    }
+    void insert(String word, int count);
 
     /**
      * Retrieve the count associated with given word
-     * (or null if it isn't present).
+     * (or 0 if it isn't present).
      *
      * @param word the word to be looked up
      * @return the count associated with word
      */
-    public int lookup(String word) {
-        return lookup(root, word);
+    int lookup(String word);
+
+    /**
+     * Adds delta to the count of the specified word. If the word is not in
+     * this map yet, it is added with a count of delta.
+     *
+     * @param word the given word that will be either inserted or have its count increased
+     * @param delta the amount to add to the word's count
+     * @return the word's new count
+     */
+    int add(String word, int delta);
+
+    /**
+     * If the specified word is already in this map, then its
+     * count is increased by one. Otherwise, the word is added to this map
+     * with a count of 1.
+     *
+     * @param word the given word that will be either inserted or have its count incremented
+     * @return the word's new count
+     */
+    default int incrementCount(String word) {
+        return add(word, 1);
     }
 
     /**
-     * Helper method to lookup().
-     * Looks up word within subtree rooted at given node.
+     * Removes word and its count from this map.
      *
-     * @param n the root of the subtree to be searched
-     * @param word the word to be looked up
-     * @return the count associated with word
+     * @param word the word to be removed
+     * @return the count word had, or 0 if it wasn't in the map
+     */
+    int remove(String word);
+
+    /**
+     * If the specified word is in this map, its count is decreased by one,
+     * and the word is removed once its count reaches 0. A word that isn't in
+     * the map is left out. This default looks the word up and then changes it,
+     * so a map shared between threads must override it to do both at once.
+     *
+     * @param word the given word whose count is decremented
+     * @return the word's new count
      */
-    private int lookup(BSTNode n, String word) {
-        if (n == null) {
+    default int decrement(String word) {
+        int count = lookup(word);
+        if (count == 0) {
+            return 0;
+        }
+        if (count == 1) {
+            remove(word);
             return 0;
-        } else if (word.compareTo(n.word) < 0) {
-            return lookup(n.left, word);
-        } else if (word.compareTo(n.word) > 0) {
-            return lookup(n.right, word);
-        } else {
-            return n.count;
         }
+        return add(word, -1);
     }
 
+    /**
+     * Returns the number of distinct words in this map.
+     *
+     * @return the number of words
+     */
+    int size();
 
+    /**
+     * Returns a list of WordCount objects, one per word stored in this
+     * map, sorted alphabetically by word.
+     * @return returns an ArrayList of WordCount objects
+     */
+    ArrayList<WordCount> getWordCountsByWord();
 
     /**
-     * Helper method for delete().
-     * Returns node in given subtree with smallest word.
+     * Calls action once for every word and its count. Tree maps visit the words
+     * in alphabetical order; other maps may use any order.
      *
-     * @param n the root of the subtree
-     * @return the node with the smallest word
-     */
-    private BSTNode smallest(BSTNode n) {
-        if (n.left == null) {
-            return n;
-        } else {
-            return smallest(n.left);
-        }
-    }
+     * @param action receives each word and its count
+     */
+    void forEachWord(ObjIntConsumer<String> action);
 
+    /**
+     * Returns a Spliterator over the words of this map in alphabetical order.
+     *
+     * @return a Spliterator of WordCount objects
+     */
+    Spliterator<WordCount> spliterator();
 
+    /**
+     * Returns an Iterator over the words of this map in alphabetical order.
+     *
+     * @return an Iterator of WordCount objects
+     */
+    default Iterator<WordCount> iterator() {
+        return Spliterators.iterator(spliterator());
+    }
 
+    /**
+     * @return a sequential Stream of the words of this map in alphabetical order
+     */
+    default Stream<WordCount> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
 
+    /**
+     * @return a parallel Stream of the words of this map
+     */
+    default Stream<WordCount> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
 
     /**
-     * If the specified word is already in this WordCountMap, then its
-     * count is increased by one. Otherwise, the word is added to this map
-     * with a count of 1.
+     * Adds every count in this map to target.
      *
-     * @param n the given node
-     * @param word the given word that will be either inserted or have its count incremented
+     * @param target the map that receives the counts
      */
-    public void incrementCount(BSTNode n, String word) {
-        // if word is in tree find word in tree
-        if (lookup(word) != 0 ) {
-            while (n != null) {
-                // if word is present increment its count
-                if (n.word.compareTo(word) == 0) {
-                    n.count++;
-                    return;
-                    // search left subtree
-                } else if (n.word.compareTo(word) > 0) {
-                    n = n.left;
-                    // search right subtree
-                } else if (n.word.compareTo(word) < 0) {
-                    n = n.right;
-                }
-            }
-        }
-        // if the word is not in the tree, insert it in the tree and give it a count of 1
-        else {
-            insert(word, 1);
-        }
+    default void addTo(WordCountMap target) {
+        forEachWord(target::add);
     }
+
     /**
-     * If the specified word is already in this WordCountMap, then its
-     * count is increased by one. Otherwise, the word is added to this map
-     * with a count of 1.
+     * Returns an ArrayList of WordCount objects sorted in decreasing order by count.
+     * Words with the same count stay in alphabetical order. Counts are small
+     * integers, so this uses the linear-time WordCount.sortByCount.
+     * @return An array of WordCount objects
+     */
+    default ArrayList<WordCount> getWordCountsByCount() {
+        return WordCount.sortByCount(getWordCountsByWord());
+    }
+
+    /**
+     * Adds every count in other to this map, as if add() were called once per word of other.
+     * Tree maps override this with a linear merge of the two alphabetical sequences.
      *
-     * @param word the given word that will be either inserted or have its count incremented
+     * @param other the counts to merge in (unchanged)
      */
-    public void incrementCount(String word) {
-        incrementCount(root, word);
+    default void merge(WordCountMap other) {
+        other.forEachWord(this::add);
     }
 
     /**
-     * Returns an ArrayList of WordCount objects sorted by the frequency they appear in a text file
-     * WordCountMap, sorted in decreasing order by count.
-     * @return An array of WordCount objects
+     * Returns the k words with the highest counts, in the same order as the start of
+     * getWordCountsByCount(). Only a min-heap of the best k words seen so far is kept,
+     * so this costs O(n log k) instead of sorting the whole vocabulary.
+     *
+     * @param k the number of words wanted
+     * @return at most k WordCounts, sorted in decreasing order by count
      */
-    public ArrayList<WordCount> getWordCountsByCount() {
-        ArrayList<WordCount> arr= getWordCountsByWord();
-        Collections.sort(arr);
+    default ArrayList<WordCount> topK(int k) {
+        // the head of the heap is the weakest of the words kept so far
+        PriorityQueue<WordCount> heap = new PriorityQueue<>(Math.max(1, k),
+                (a, b) -> compareByCount(b.word, b.count, a.word, a.count));
+        if (k > 0) {
+            forEachWord((word, count) -> {
+                if (heap.size() < k) {
+                    heap.add(new WordCount(word, count));
+                } else if (compareByCount(word, count, heap.peek().word, heap.peek().count) < 0) {
+                    heap.poll();
+                    heap.add(new WordCount(word, count));
+                }
+            });
+        }
+        ArrayList<WordCount> arr = new ArrayList<WordCount>(heap.size());
+        while (!heap.isEmpty()) {
+            arr.add(heap.poll());
+        }
+        Collections.reverse(arr);
         return arr;
     }
 
     /**
-     * Returns a list of WordCount objects myWordCountArray, one per word stored in this
-     * WordCountMap, sorted alphabetically by word.
-     * @return returns an ArrayList of WordCount objects
+     * Orders words by decreasing count, breaking ties alphabetically
+     * (the order of getWordCountsByCount()).
+     *
+     * @return a negative number if (word1, count1) comes first, positive if (word2, count2) does
      */
-    public ArrayList<WordCount> getWordCountsByWord() {
-        ArrayList<WordCount> myWordCountArray = new ArrayList<WordCount>();
-        alphabettraversal(root, myWordCountArray);
-        return myWordCountArray;
+    private static int compareByCount(String word1, int count1, String word2, int count2) {
+        if (count1 != count2) {
+            return count1 > count2 ? -1 : 1;
+        }
+        return word1.compareTo(word2);
     }
+
     /**
-     * method to traverse BST and add WordCount objects to the ArrayList
+     * Creates an empty map of the named kind.
      *
-     * @param n a given BSTNode
-     * @param myWordCountArray an array of wordcount objects
-     */
-    public void alphabettraversal(BSTNode n, ArrayList<WordCount> myWordCountArray){
-        // if both children are null add new WordCount
-        if(n.left == null && n.right == null){
-            myWordCountArray.add(new WordCount(n.word, n.count));
-            return;
-        } else {
-            // if right child is null, call alphabettraversal on n.left and add new WordCount
-            if(n.right == null){ // only left child
-                alphabettraversal(n.left, myWordCountArray);
-                myWordCountArray.add(new WordCount(n.word, n.count));
-                return;
-            }
-            // if left child is null, call alphabettraversal on n.right and add new WordCount
-            if(n.left == null){ // only right child
-                myWordCountArray.add(new WordCount(n.word, n.count));
-                alphabettraversal(n.right, myWordCountArray);
-                return;
-            }
-            // if has no children, call alphabettraversal on n.left, then add word count, then perform alphabettraversal on n.right
-            else {
-                alphabettraversal(n.left, myWordCountArray);
-                myWordCountArray.add(new WordCount(n.word, n.count));
-                alphabettraversal(n.right, myWordCountArray);
-                return;
-            }
+     * @param backend one of "bst", "redblack", "hash", "compact" or "concurrent"
+     * @return a new, empty WordCountMap
+     * @throws IllegalArgumentException if the backend name is not recognised
+     */
+    static WordCountMap create(String backend) {
+        switch (backend) {
+            case "bst":
+                return new BSTWordCountMap();
+            case "redblack":
+                return new RedBlackWordCountMap();
+            case "hash":
+                return new HashWordCountMap();
+            case "compact":
+                return new CompactWordCountMap();
+            case "concurrent":
+                return new ConcurrentWordCountMap();
+            default:
+                throw new IllegalArgumentException("unknown WordCountMap backend: " + backend);
         }
     }
 }
@@ -0,0 +1,125 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+/**
+ * Saves word counts to a compact binary file and loads them back, so a corpus
+ * that hasn't changed doesn't have to be read and counted again.
+ *
+ * File format (all ints are 4 bytes, high byte first):
+ *   the 4 bytes "WCS2"
+ *   int     n, the number of words
+ *   bytes   the words in UTF-8, one after another, in alphabetical order
+ *   int[n]  the counts, in the same order
+ *   int[n + 1]  offsets: word i is bytes [offsets[i], offsets[i + 1]) of the words
+ * The index is at the end so save() can write the file in one pass, and its
+ * position follows from the file's size.
+ *
+ * Loading maps the file and copies only the counts; the words stay in the
+ * mapped file, where SortedWordCountMap binary-searches them through the
+ * offsets and makes a String of a word only when it is asked for.
+ */
+public class WordCountSnapshot {
+    private static final byte[] MAGIC = {'W', 'C', 'S', '2'};
+
+    /**
+     * Writes every word of map, with its count, to a snapshot file.
+     *
+     * @param map the counts to save
+     * @param fileName the snapshot file to (over)write
+     * @throws IOException if the file cannot be written
+     */
+    public static void save(WordCountMap map, String fileName) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(fileName), 1 << 16))) {
+            int size = map.size();
+            int[] counts = new int[size];
+            int[] offsets = new int[size + 1];
+            out.write(MAGIC);
+            out.writeInt(size);
+            int i = 0;
+            // iteration is alphabetical, which is the order the snapshot needs
+            for (WordCount wordCount : map) {
+                byte[] word = wordCount.word.getBytes(StandardCharsets.UTF_8);
+                out.write(word);
+                counts[i] = wordCount.count;
+                offsets[i + 1] = offsets[i] + word.length;
+                i++;
+            }
+            if (i != size) {
+                throw new IOException("the counts changed while " + fileName + " was being written");
+            }
+            for (int count : counts) {
+                out.writeInt(count);
+            }
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+        }
+    }
+
+    /**
+     * Loads a snapshot file. The file is memory-mapped and only its counts are
+     * copied out; the returned map reads the words from the mapping as needed.
+     *
+     * @param fileName the snapshot file
+     * @return the saved counts
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public static SortedWordCountMap load(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(fileName + " is too large for a word count snapshot");
+            }
+            // the mapping stays valid after the channel is closed
+            ByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (!startsWith(buf, MAGIC) || buf.limit() < 8) {
+                throw new IOException(fileName + " is not a word count snapshot");
+            }
+            int size = buf.getInt(4);
+            long indexStart = buf.limit() - 8L * size - 4;
+            if (size < 0 || indexStart < 8) {
+                throw new IOException(fileName + " is a truncated word count snapshot");
+            }
+            int[] counts = new int[size];
+            buf.position((int) indexStart);
+            buf.asIntBuffer().get(counts);
+            buf.position((int) indexStart + 4 * size);
+            IntBuffer offsets = buf.slice().asIntBuffer();
+            buf.position(8).limit((int) indexStart);
+            ByteBuffer words = buf.slice();
+            // a bad index would make the map read outside the words later on
+            int previous = 0;
+            for (int i = 0; i <= size; i++) {
+                int offset = offsets.get(i);
+                if (offset < previous || (i == 0 && offset != 0)) {
+                    throw new IOException(fileName + " has a damaged word count snapshot index");
+                }
+                previous = offset;
+            }
+            if (previous != words.limit()) {
+                throw new IOException(fileName + " has a damaged word count snapshot index");
+            }
+            return new SortedWordCountMap(words, offsets, counts, size);
+        } catch (java.nio.BufferUnderflowException e) {
+            throw new IOException(fileName + " is a truncated word count snapshot");
+        }
+    }
+
+    /**
+     * @return true if buf starts with the given magic bytes
+     */
+    private static boolean startsWith(ByteBuffer buf, byte[] magic) {
+        if (buf.limit() < magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if (buf.get(i) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,184 @@
+import java.io.*;
+import java.util.Arrays;
+/**
+ * Writes (word, count) listings through one large buffer, in one of these formats:
+ *   plain - word: count        (what WordCounter has always printed)
+ *   tsv   - word[tab]count
+ *   csv   - word,count         (the word quoted if it holds a comma, quote or line break)
+ *   jsonl - {"word":"...","count":n}, one JSON object per line
+ * Words are written straight from their Strings and counts digit by digit,
+ * so no String is built per line.
+ */
+public class WordCountWriter implements Closeable {
+    private static final String[] FORMATS = {"plain", "tsv", "csv", "jsonl"};
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer out;
+    private final String format;
+    private final boolean closeOut;
+    // room for the digits of any int
+    private final char[] digits = new char[11];
+
+    /**
+     * @param out where to write; it is buffered here, so it need not be
+     * @param format plain, tsv, csv or jsonl
+     * @param closeOut true if close() should close out, false to only flush it (for stdout)
+     */
+    public WordCountWriter(Writer out, String format, boolean closeOut) {
+        if (!isFormat(format)) {
+            throw new IllegalArgumentException("unknown format \"" + format + "\" (plain, tsv, csv or jsonl)");
+        }
+        this.out = new BufferedWriter(out, BUFFER_SIZE);
+        this.format = format;
+        this.closeOut = closeOut;
+    }
+
+    /**
+     * @param format the name of a format
+     * @return true if format is plain, tsv, csv or jsonl
+     */
+    public static boolean isFormat(String format) {
+        return Arrays.asList(FORMATS).contains(format);
+    }
+
+    /**
+     * Opens a writer on a file, or on standard output.
+     *
+     * @param fileName the file to (over)write, or null for standard output
+     * @param format plain, tsv, csv or jsonl
+     * @return the writer
+     * @throws IOException if the file can't be created
+     */
+    public static WordCountWriter open(String fileName, String format) throws IOException {
+        if (fileName == null) {
+            return new WordCountWriter(new OutputStreamWriter(System.out), format, false);
+        }
+        return new WordCountWriter(new FileWriter(fileName), format, true);
+    }
+
+    /**
+     * Writes one line of the listing.
+     *
+     * @param word the word
+     * @param count its count
+     * @throws IOException if the output can't be written
+     */
+    public void write(String word, int count) throws IOException {
+        switch (format) {
+            case "plain":
+                out.write(word);
+                out.write(": ");
+                break;
+            case "tsv":
+                out.write(word);
+                out.write('\t');
+                break;
+            case "csv":
+                writeCsv(word);
+                out.write(',');
+                break;
+            default:
+                out.write("{\"word\":\"");
+                writeJson(word);
+                out.write("\",\"count\":");
+                break;
+        }
+        writeInt(count);
+        if (format.equals("jsonl")) {
+            out.write('}');
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Writes a word as a CSV field, quoting it (and doubling its quotes) only if needed.
+     */
+    private void writeCsv(String word) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < word.length() && !quote; i++) {
+            char c = word.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            out.write(word);
+            return;
+        }
+        out.write('"');
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c == '"') {
+                out.write('"');
+            }
+            out.write(c);
+        }
+        out.write('"');
+    }
+
+    /**
+     * Writes a word as the inside of a JSON string, escaping quotes, backslashes
+     * and control characters.
+     */
+    private void writeJson(String word) throws IOException {
+        int start = 0;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                out.write(word, start, i - start);
+                if (c == '"' || c == '\\') {
+                    out.write('\\');
+                    out.write(c);
+                } else {
+                    out.write(String.format("\\u%04x", (int) c));
+                }
+                start = i + 1;
+            }
+        }
+        out.write(word, start, word.length() - start);
+    }
+
+    /**
+     * Writes the decimal digits of n without making a String.
+     */
+    private void writeInt(int n) throws IOException {
+        if (n == Integer.MIN_VALUE) {
+            out.write(Integer.toString(n));
+            return;
+        }
+        int pos = digits.length;
+        boolean negative = n < 0;
+        if (negative) {
+            n = -n;
+        }
+        do {
+            digits[--pos] = (char) ('0' + n % 10);
+            n /= 10;
+        } while (n != 0);
+        if (negative) {
+            digits[--pos] = '-';
+        }
+        out.write(digits, pos, digits.length - pos);
+    }
+
+    /**
+     * Writes out whatever is still buffered.
+     *
+     * @throws IOException if the output can't be written
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Flushes the listing, and closes the file (standard output is only flushed).
+     *
+     * @throws IOException if the output can't be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closeOut) {
+            out.close();
+        } else {
+            out.flush();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 import java.io.*;
+import java.nio.file.NoSuchFileException;
 import java.util.*;
+import java.util.concurrent.*;
 /**
  * Creates WordCountMap and contains methods to create WordCloudMap
  * as well as alphabetical and frequency sorting methods
@@ -11,96 +13,399 @@ import java.util.*;
  */
 public class WordCounter{
     private File file;
-    private WordCountMap BST = new WordCountMap();
+    private WordCountMap map;
+    private StopWords stopWords;
+    private HeavyHitters heavyHitters;
+    private NGramCounter ngrams;
+    private ApproximateCounter approximate;
+    // the TokenFilter stages words go through in load(), as a comma-separated list
+    private String pipeline = "stop";
+    // set when a file could only be read in part, so its counts must not be cached
+    private volatile boolean incomplete;
+
     /**
-     * loads in file
+     * creates a WordCounter that counts words in a BSTWordCountMap
+     */
+    public WordCounter() {
+        this(new BSTWordCountMap());
+    }
+
+    /**
+     * creates a WordCounter that counts words in the given map
      *
-     * @param fileName is the filenpath that is passed through the commandline
+     * @param map the (empty) WordCountMap to count into
      */
-    public void load(String fileName) {
-        // arraylists to store stopwords and lines from the chosen file
-        ArrayList<String> lines = new ArrayList<>();
-        ArrayList<String> stopArray = new ArrayList<>();
-        String line = null;
-        File wordsofstopping = new File("StopWords.txt");
-        Scanner scanner = null;
+    public WordCounter(WordCountMap map) {
+        this.map = map;
+    }
+
+    /**
+     * sets the words to leave out of the counts; if this is never called,
+     * load() reads them from StopWords.txt
+     *
+     * @param stopWords the stop list to use
+     */
+    public void setStopWords(StopWords stopWords) {
+        this.stopWords = stopWords;
+    }
+    /**
+     * makes load() track only the most frequent words, in a fixed amount of memory,
+     * instead of counting every word exactly; after loading, the map holds the tracked
+     * words with their estimated counts
+     *
+     * @param capacity the number of words to track
+     */
+    public void setHeavyHitters(int capacity) {
+        heavyHitters = new HeavyHitters(capacity);
+    }
 
+    /**
+     * sets the normalization stages words go through in load(), such as
+     * "apostrophes,stop,stem,minlength=3" (see TokenFilter); the default is "stop"
+     *
+     * @param pipeline the stage names, comma-separated
+     * @throws IllegalArgumentException if a stage name is not known
+     */
+    public void setPipeline(String pipeline) {
+        TokenFilter.parse(pipeline, new StopWords());
+        this.pipeline = pipeline;
+    }
+
+    /**
+     * makes load() count approximately in a fixed amount of memory, with a Count-Min
+     * Sketch, a HyperLogLog and a heavy-hitter heap; after loading, the map holds the
+     * most frequent words with their estimated counts
+     *
+     * @param bytes the memory to use, at least 16 KB
+     */
+    public void setApproximate(long bytes) {
+        approximate = ApproximateCounter.withMemory(bytes);
+    }
+
+    /**
+     * makes load() count runs of n consecutive words instead of single words; after
+     * loading, the map holds each n-gram as "word1 word2 ..." with its count
+     *
+     * @param n the number of words per n-gram, from 2 to 4
+     */
+    public void setNGrams(int n) {
+        ngrams = new NGramCounter(n);
+    }
+
+    /**
+     * loads in file, streaming it through a WordTokenizer so that each word goes
+     * straight into the map and only a small buffer of the file is in memory at once
+     *
+     * @param fileName is the filenpath that is passed through the commandline; a file
+     *                 ending in .gz is decompressed on a separate thread as it is read
+     */
+    public void load(String fileName) {
         try {
-            FileReader filereader = new FileReader(fileName);
+            count(fileName);
+        } catch (FileNotFoundException e) {
+            System.err.println(e);
+            System.exit(1);
+        } catch (IOException e) {
+            e.printStackTrace();
+            incomplete = true;
+        }
+        if (ngrams != null) {
+            // the n-grams so far, across every file loaded; none span two files
+            ngrams.endText();
+            map = ngrams.toWordCountMap();
+        } else if (approximate != null) {
+            map = approximate.toWordCountMap();
+        } else if (heavyHitters != null) {
+            // the tracked words so far, across every file loaded
+            map = heavyHitters.toWordCountMap();
+        }
+    }
+
+    /**
+     * counts the words of a file like load(), but leaves a file that can't be read to
+     * the caller instead of exiting, so one bad file of many can be reported and skipped
+     *
+     * @param fileName the file to count; a file ending in .gz is decompressed as it is read
+     * @throws IOException if the file can't be read
+     */
+    void count(String fileName) throws IOException {
+        StopWords stopWords = getStopWords();
+        try (Reader reader = fileName.endsWith(".gz")
+                ? new InputStreamReader(new GzipPipeline(fileName)) : new FileReader(fileName)) {
+            // words are lower-cased and split on non alphabetical characters as they are read,
+            // then go through the pipeline stages, which by default leave out the stop words
+            WordTokenizer.fromSpec(pipeline, stopWords).tokenize(reader, word -> {
+                if (ngrams != null) {
+                    ngrams.add(word);
+                } else if (approximate != null) {
+                    approximate.offer(word);
+                } else if (heavyHitters != null) {
+                    heavyHitters.offer(word);
+                } else {
+                    map.incrementCount(word);
+                }
+            });
+        }
+    }
 
-            BufferedReader bufferedReader = new BufferedReader(filereader);
-            // process of reading in the chosen file
-            while ((line = bufferedReader.readLine()) != null) {
-                // in every line of text makes everything lowercase and deletes any non alphabetical characters
-                line = line.toLowerCase();
-                line = line.replaceAll("[^a-zA-Z]", " ");
-                lines.add(line);                        //scanner returns boolean,
+    /**
+     * loads in several files at once, each read by its own thread from a pool of the
+     * given size, with every thread counting into the one shared map. The map must be
+     * safe to update from several threads, like ConcurrentWordCountMap.
+     *
+     * @param fileNames the files to load
+     * @param threads the number of reader threads
+     */
+    public void loadAll(List<String> fileNames, int threads) {
+        // read the stop list once, before the threads start sharing it
+        getStopWords();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            ArrayList<Future<?>> loads = new ArrayList<>();
+            for (String fileName : fileNames) {
+                loads.add(pool.submit(() -> load(fileName)));
             }
+            for (Future<?> load : loads) {
+                load.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.getCause().printStackTrace();
+            incomplete = true;
+        } finally {
+            pool.shutdown();
+        }
+    }
 
+    /**
+     * loads in file like load(), but counts chunks of the file in parallel
+     * on the common ForkJoinPool and merges the results into the map
+     *
+     * @param fileName is the filenpath that is passed through the commandline
+     */
+    public void loadParallel(String fileName) {
+        try {
+            new ParallelWordCounter(getStopWords(), ForkJoinPool.commonPool()).count(fileName, map);
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            System.err.println(e);
+            System.exit(1);
+        } catch (IOException e) {
+            e.printStackTrace();
+            incomplete = true;
+        }
+    }
 
-            bufferedReader.close();
-        } catch (FileNotFoundException e) {
+    /**
+     * loads in an ASCII or UTF-8 file like load(), but memory-maps it and splits
+     * it into words directly on its bytes, so a String is only made for the first
+     * occurrence of each word. A .gz file is decompressed on a separate thread and
+     * its bytes are counted as they come, instead of being mapped.
+     *
+     * @param fileName is the filenpath that is passed through the commandline
+     */
+    public void loadMapped(String fileName) {
+        try {
+            countMapped(fileName);
+        } catch (NoSuchFileException | FileNotFoundException e) {
             System.err.println(e);
             System.exit(1);
         } catch (IOException e) {
             e.printStackTrace();
+            incomplete = true;
         }
+    }
+
+    /**
+     * counts the words of a file like loadMapped(), but leaves a file that can't be read
+     * to the caller instead of exiting
+     *
+     * @param fileName the file to count
+     * @throws IOException if the file can't be read
+     */
+    void countMapped(String fileName) throws IOException {
+        ByteWordCountMap counts = new ByteWordCountMap(getStopWords());
         try {
-            scanner = new Scanner(wordsofstopping);
-            while (scanner.hasNextLine()) {
-                //takes in the words contained within StopWords.txt
-                String stopWords1 = scanner.nextLine();
-                stopArray.add(stopWords1);
+            if (fileName.endsWith(".gz")) {
+                new ByteTokenizer(counts).tokenizeGzip(fileName);
+            } else {
+                new ByteTokenizer(counts).tokenizeFile(fileName);
             }
+        } finally {
+            // whatever was read before a failure is still counted
+            counts.addTo(map);
+        }
+    }
+
+    /**
+     * adds the counts saved in a snapshot file to the counts so far, merging them into the
+     * chosen map (one linear merge for the tree maps), so the backend stays the one asked for
+     *
+     * @param fileName the snapshot written by saveSnapshot()
+     */
+    public void loadSnapshot(String fileName) {
+        try {
+            map.merge(WordCountSnapshot.load(fileName));
+        } catch (NoSuchFileException e) {
+            System.err.println(e);
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * saves the current counts to a snapshot file, so loadSnapshot() can reload them later
+     *
+     * @param fileName the snapshot file to write
+     */
+    public void saveSnapshot(String fileName) {
+        try {
+            WordCountSnapshot.save(map, fileName);
+        } catch (IOException e) {
+            System.err.println(e);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * loads the counts cached for the same inputs, if there are any, into the map, which
+     * should still be empty; they are merged in so the backend stays the one asked for
+     *
+     * @param cache the result cache
+     * @param key the key of the inputs, from ResultCache.key()
+     * @return true if the counts came from the cache
+     */
+    public boolean loadCached(ResultCache cache, String key) {
+        SortedWordCountMap cached = cache.get(key);
+        if (cached == null) {
+            return false;
+        }
+        map.merge(cached);
+        return true;
+    }
+
+    /**
+     * stores the current counts in the cache, unless a file could only be read in part;
+     * if storing fails the run goes on, only uncached
+     *
+     * @param cache the result cache
+     * @param key the key of the inputs, from ResultCache.key()
+     */
+    public void saveCached(ResultCache cache, String key) {
+        if (incomplete) {
+            System.err.println("not caching the counts, since an input could not be read completely");
+            return;
+        }
+        try {
+            cache.put(key, map);
+        } catch (IOException e) {
+            System.err.println("could not cache the counts: " + e);
+        }
+    }
 
+    /**
+     * computes the result cache key for counting the given files, exiting if one of them can't be read
+     *
+     * @param options the settings that change the counts
+     * @param inputFiles the files that are counted
+     * @param stopFiles the stop list files
+     * @return the key
+     */
+    private static String cacheKey(String options, List<String> inputFiles, List<String> stopFiles) {
+        try {
+            return ResultCache.key(options, inputFiles, stopFiles);
         } catch (FileNotFoundException e) {
             System.err.println(e);
             System.exit(1);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
         }
+        return null;
+    }
 
-        for (int i = 0; i < lines.size(); i++) {
-            //partitions words and doesn't add words that are found in StopWords.txt
-            String[] splitWords = lines.get(i).split("\\s+"); //partitions the lines
-            for (int j = 0; j < splitWords.length; j++) {
-                if (stopArray.contains(splitWords[j])|| splitWords[j].equals(""))  {
-                }
-                else {
-                    BST.incrementCount(splitWords[j]);
-                }
-            }
+    /**
+     * returns the stop list, reading StopWords.txt if none has been set
+     *
+     * @return the words to leave out of the counts
+     */
+    private StopWords getStopWords() {
+        if (stopWords == null) {
+            //takes in the words contained within StopWords.txt
+            stopWords = loadStopWords(Collections.singletonList(StopWords.DEFAULT_FILE));
         }
+        return stopWords;
+    }
+
+    /**
+     * reads the given stop list files, exiting if one of them can't be read
+     *
+     * @param fileNames the stop list files
+     * @return the combined stop list
+     */
+    private static StopWords loadStopWords(List<String> fileNames) {
+        try {
+            return StopWords.fromFiles(fileNames);
+        } catch (FileNotFoundException e) {
+            System.err.println(e);
+            System.exit(1);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        return null;
     }
 
     /**
      * * prints out an alphabetized list of the words in the given text file with their counts
      */
     public void alphabetical(){
-        //creates an array of words ordered alphabetically
-        ArrayList<WordCount> arr = BST.getWordCountsByWord();
-        for(int i = 0; i < arr.size(); i++) {
-            //prints out the array in order
-            System.out.println(arr.get(i).word + ": " + arr.get(i).count);
-        }
+        list(true, null, "plain");
     }
 
     /**
      * prints out a descending count organized list of the words in the given text file with their counts
      */
     public void frequency() {
-        //creates an array of words ordered by frequency
-        ArrayList<WordCount> arr = BST.getWordCountsByCount();
-        for(int i = 0; i < arr.size(); i++) {
-            //prints out the array
-            System.out.println(arr.get(i).word + ": " + arr.get(i).count);
+        list(false, null, "plain");
+    }
+
+    /**
+     * writes the words with their counts, alphabetically or by descending count, through
+     * one buffered WordCountWriter
+     *
+     * @param alphabetical true for alphabetical order, false for descending count
+     * @param fileName the file to write, or null for standard output
+     * @param format plain, tsv, csv or jsonl
+     */
+    public void list(boolean alphabetical, String fileName, String format) {
+        try (WordCountWriter out = WordCountWriter.open(fileName, format)) {
+            if (alphabetical) {
+                //walks the map in alphabetical order, writing each word as it is reached
+                for (WordCount wordCount : map) {
+                    out.write(wordCount.word, wordCount.count);
+                }
+            } else {
+                //creates an array of words ordered by frequency
+                for (WordCount wordCount : map.getWordCountsByCount()) {
+                    out.write(wordCount.word, wordCount.count);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println(e);
+            System.exit(1);
         }
     }
     /**
-     * returns array of words by count
+     * returns the size most frequent words, found with a bounded heap rather than by sorting every word
      *
+     * @param size # of words wanted
      * @return arr
      */
-    public ArrayList<WordCount> cloudFrequency() {
-        ArrayList<WordCount> arr = BST.getWordCountsByCount();
+    public ArrayList<WordCount> cloudFrequency(int size) {
+        ArrayList<WordCount> arr = map.topK(size);
         return arr;
     }
     /**
@@ -113,32 +418,318 @@ public class WordCounter{
      */
     public void cloud(int size,ArrayList<WordCount> sortedList,String name,String htmlName){
         ArrayList<WordCount> sizedList = new ArrayList<WordCount>();
-        for(int i = 0;i<size;i++){
+        for(int i = 0;i<size && i<sortedList.size();i++){
             sizedList.add(sortedList.get(i));
         }
         WordCloudMaker cloud = new WordCloudMaker();
         cloud.createWordCloudHTML(name,sizedList,htmlName);
     }
+    /**
+     * keeps a word cloud of the most frequent words in a sliding window over a stream,
+     * such as a log that is being followed. The cloud is rewritten at most once a second
+     * while words arrive, and once more when the stream ends.
+     *
+     * @param in the stream of text
+     * @param window the window to count in
+     * @param size # of words in the cloud
+     * @param name the title of the cloud
+     * @param htmlName the html file to (re)write
+     */
+    public void trending(Reader in, SlidingWindowCounter window, int size, String name, String htmlName)
+            throws IOException {
+        long[] written = {System.currentTimeMillis()};
+        WordTokenizer.fromSpec(pipeline, getStopWords()).tokenize(in, word -> {
+            window.add(word);
+            long now = System.currentTimeMillis();
+            if (now - written[0] >= 1000) {
+                cloud(size, window.topK(size), name, htmlName);
+                written[0] = now;
+            }
+        });
+        window.expire(System.currentTimeMillis());
+        cloud(size, window.topK(size), name, htmlName);
+    }
+
+    /**
+     * prints how to run WordCounter and exits
+     */
+    private static void usage() {
+        System.err.println("Usage: java WordCounter [options] frequency|alphabetical <textfile>...");
+        System.err.println("       java WordCounter [options] cloud <textfile> <numberOfWords>");
+        System.err.println("       java WordCounter -snapshot <file> [options] frequency|alphabetical [<newfile>...]");
+        System.err.println("       java WordCounter -snapshot <file> [options] cloud [<newfile>...] <numberOfWords>");
+        System.err.println("       java WordCounter [options] ngram <n> <textfile>...");
+        System.err.println("       java WordCounter [options] trending <numberOfWords> <words>|<seconds>s [<textfile>]");
+        System.err.println("       java WordCounter [options] batch <numberOfWords> <textfile or directory>...");
+        System.err.println("trending keeps <textfile>-trending.html (trending.html for standard input) showing");
+        System.err.println("the top words among the last <words> words, or those of the last <seconds> seconds.");
+        System.err.println("Text files ending in .gz are decompressed as they are read.");
+        System.err.println("Options:");
+        System.err.println("  -backend <name>             bst, redblack, hash, compact or concurrent (default bst,");
+        System.err.println("                              or hash for trending, which can't use bst)");
+        System.err.println("  -stopwords <file>           stop list to use instead of StopWords.txt");
+        System.err.println("  -addstopwords <file>        extra stop list, may be given more than once");
+        System.err.println("  -pipeline <stages>          how words are normalized, in order (default stop):");
+        System.err.println("                              apostrophes, stop, stem, minlength=<n>, comma-separated");
+        System.err.println("  -parallel                   count chunks of the file on all cores");
+        System.err.println("  -ngram <n>                  count runs of n words (2 to 4) instead of single words");
+        System.err.println("  -heavyhitters <n>           only track the n most frequent words (approximate counts)");
+        System.err.println("  -approx <kilobytes>         count approximately in fixed memory (Count-Min Sketch,");
+        System.err.println("                              HyperLogLog, heavy hitters); error bounds go to stderr");
+        System.err.println("  -threads <n>                read several files at once (needs -backend concurrent,");
+        System.err.println("                              except in batch mode, where it defaults to one per core)");
+        System.err.println("  -save <file>                save the counts to a snapshot file");
+        System.err.println("  -cache <dir>                reuse the counts of an earlier run on the same files and stop lists");
+        System.err.println("  -cachesize <MB>             most space the cache may use, least recently used dropped first (256)");
+        System.err.println("  -format <name>              listing format: plain, tsv, csv or jsonl (default plain)");
+        System.err.println("  -out <file>                 write the listing to a file instead of standard output");
+        System.err.println("  -snapshot <file>            start from the counts in a snapshot; only the text files given are read");
+        System.err.println("  -mmap                       memory-map an ASCII/UTF-8 file and count its bytes directly");
+        System.exit(1);
+    }
+
     /**
      *  creates WordCountMap and then runs frequency, alphabetical, or cloud methods based off of commandline input
      */
     public static void main(String[] args) {
-        WordCounter counter = new WordCounter();
-        counter.load(args[1]);
+        // options come first, e.g. "-backend hash", and are followed by the usual arguments
+        String backend = null;
+        boolean parallel = false;
+        boolean mapped = false;
+        int heavyHitters = 0;
+        int ngram = 0;
+        long approx = 0;
+        int threads = 0;
+        String snapshot = null;
+        String save = null;
+        String cacheDir = null;
+        String format = "plain";
+        String pipeline = "stop";
+        String out = null;
+        long cacheSize = 256L << 20;
+        String stopFile = StopWords.DEFAULT_FILE;
+        ArrayList<String> extraStopFiles = new ArrayList<>();
+        ArrayList<String> positional = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-backend") && i + 1 < args.length) {
+                backend = args[++i];
+            } else if (args[i].equals("-parallel")) {
+                parallel = true;
+            } else if (args[i].equals("-mmap")) {
+                mapped = true;
+            } else if (args[i].equals("-heavyhitters") && i + 1 < args.length) {
+                heavyHitters = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-ngram") && i + 1 < args.length) {
+                ngram = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-approx") && i + 1 < args.length) {
+                approx = Long.parseLong(args[++i]) * 1024;
+            } else if (args[i].equals("-threads") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("-snapshot") && i + 1 < args.length) {
+                snapshot = args[++i];
+            } else if (args[i].equals("-pipeline") && i + 1 < args.length) {
+                pipeline = args[++i];
+            } else if (args[i].equals("-format") && i + 1 < args.length) {
+                format = args[++i];
+            } else if (args[i].equals("-out") && i + 1 < args.length) {
+                out = args[++i];
+            } else if (args[i].equals("-cache") && i + 1 < args.length) {
+                cacheDir = args[++i];
+            } else if (args[i].equals("-cachesize") && i + 1 < args.length) {
+                cacheSize = Long.parseLong(args[++i]) << 20;
+            } else if (args[i].equals("-save") && i + 1 < args.length) {
+                save = args[++i];
+            } else if (args[i].equals("-stopwords") && i + 1 < args.length) {
+                stopFile = args[++i];
+            } else if (args[i].equals("-addstopwords") && i + 1 < args.length) {
+                extraStopFiles.add(args[++i]);
+            } else if (args[i].startsWith("-")) {
+                usage();
+            } else {
+                positional.add(args[i]);
+            }
+        }
+        if (positional.size() >= 2 && positional.get(0).equals("ngram")) {
+            // "ngram 2 file.txt" is short for "-ngram 2 frequency file.txt"
+            ngram = Integer.parseInt(positional.get(1));
+            positional.set(1, "frequency");
+            positional.remove(0);
+        }
+        args = positional.toArray(new String[0]);
+        if (ngram != 0 && (ngram < 2 || ngram > 4 || heavyHitters > 0 || parallel || mapped
+                || threads > 1 || snapshot != null || save != null)) {
+            usage();
+        }
+        if (approx != 0 && (approx < 1 << 14 || cacheDir != null || ngram > 0 || heavyHitters > 0 || parallel || mapped
+                || threads > 1 || snapshot != null || save != null)) {
+            usage();
+        }
+        if (args.length < 1 || (heavyHitters > 0 && (parallel || mapped)) || !WordCountWriter.isFormat(format)) {
+            usage();
+        }
+        try {
+            TokenFilter.parse(pipeline, new StopWords());
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            usage();
+        }
+        // the parallel, memory-mapped and batch paths have their own tokenizers, which only drop stop words
+        boolean customPipeline = !pipeline.equals("stop");
+        if (customPipeline && (parallel || mapped || args[0].equals("batch"))) {
+            usage();
+        }
+        if (backend == null) {
+            backend = args[0].equals("trending") ? "hash" : "bst";
+        }
+        if (args[0].equals("trending")) {
+            // a live cloud over a window of the stream; every word is added and later removed, so
+            // the unbalanced bst, which degrades to O(n) per word on sorted input, is not allowed
+            if (args.length < 3 || args.length > 4 || heavyHitters > 0 || ngram > 0 || approx > 0 || parallel
+                    || mapped || threads > 1 || snapshot != null || save != null || cacheDir != null
+                    || backend.equals("bst")) {
+                usage();
+            }
+            WordCounter counter = null;
+            try {
+                counter = new WordCounter(WordCountMap.create(backend));
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                usage();
+            }
+            ArrayList<String> stopFiles = new ArrayList<>();
+            stopFiles.add(stopFile);
+            stopFiles.addAll(extraStopFiles);
+            counter.setStopWords(loadStopWords(stopFiles));
+            counter.setPipeline(pipeline);
+            int size = Integer.parseInt(args[1]);
+            SlidingWindowCounter window = args[2].endsWith("s")
+                    ? new SlidingWindowCounter(counter.map, 0, 1000 * Long.parseLong(args[2].substring(0, args[2].length() - 1)))
+                    : new SlidingWindowCounter(counter.map, Integer.parseInt(args[2]), 0);
+            String source = args.length == 4 ? args[3] : null;
+            int endIndex = source == null ? -1 : source.indexOf(".");
+            String name = source == null ? "trending" : endIndex < 0 ? source : source.substring(0, endIndex);
+            String htmlName = source == null ? "trending.html" : name + "-trending.html";
+            try (Reader in = source == null ? new InputStreamReader(System.in)
+                    : source.endsWith(".gz") ? new InputStreamReader(new GzipPipeline(source)) : new FileReader(source)) {
+                counter.trending(in, window, size, name, htmlName);
+            } catch (FileNotFoundException e) {
+                System.err.println(e);
+                System.exit(1);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return;
+        }
+        if (args[0].equals("batch")) {
+            // a cloud for every file, several files at a time, with one shared stop list
+            if (args.length < 3 || heavyHitters > 0 || ngram > 0 || approx > 0 || cacheDir != null || parallel || snapshot != null || save != null) {
+                usage();
+            }
+            try {
+                WordCountMap.create(backend);
+            } catch (IllegalArgumentException e) {
+                System.err.println(e.getMessage());
+                usage();
+            }
+            ArrayList<String> stopFiles = new ArrayList<>();
+            stopFiles.add(stopFile);
+            stopFiles.addAll(extraStopFiles);
+            int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+            BatchCloudMaker batch = new BatchCloudMaker(loadStopWords(stopFiles), backend, mapped, workers);
+            batch.run(BatchCloudMaker.expand(Arrays.asList(args).subList(2, args.length)), Integer.parseInt(args[1]));
+            return;
+        }
+        threads = Math.max(threads, 1);
+        if (threads > 1 && (!backend.equals("concurrent") || heavyHitters > 0 || parallel || mapped)) {
+            usage();
+        }
+        // frequency and alphabetical count every file given; cloud ends with the number of words
+        boolean cloud = args[0].equals("cloud");
+        if (cloud && args.length < 2) {
+            usage();
+        }
+        List<String> files = Arrays.asList(args).subList(1, cloud ? args.length - 1 : args.length);
+        if (files.isEmpty() && snapshot == null) {
+            usage();
+        }
+        WordCounter counter = null;
+        try {
+            counter = new WordCounter(WordCountMap.create(backend));
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            usage();
+        }
+        ArrayList<String> stopFiles = new ArrayList<>();
+        stopFiles.add(stopFile);
+        stopFiles.addAll(extraStopFiles);
+        counter.setStopWords(loadStopWords(stopFiles));
+        counter.setPipeline(pipeline);
+        if (heavyHitters > 0) {
+            counter.setHeavyHitters(heavyHitters);
+        }
+        if (ngram > 0) {
+            counter.setNGrams(ngram);
+        }
+        if (approx > 0) {
+            counter.setApproximate(approx);
+        }
+        ResultCache cache = null;
+        String cacheKey = null;
+        if (cacheDir != null) {
+            // the same files, stop lists and options always give the same counts
+            cache = new ResultCache(cacheDir, cacheSize);
+            ArrayList<String> inputs = new ArrayList<>(files);
+            if (snapshot != null) {
+                inputs.add(snapshot);
+            }
+            cacheKey = cacheKey("mmap=" + mapped + " ngram=" + ngram + " heavyhitters=" + heavyHitters
+                    + " pipeline=" + pipeline,
+                    inputs, stopFiles);
+        }
+        if (cache == null || !counter.loadCached(cache, cacheKey)) {
+            if (threads > 1) {
+                counter.loadAll(files, threads);
+            }
+            for (int i = 0; threads == 1 && i < files.size(); i++) {
+                if (parallel) {
+                    counter.loadParallel(files.get(i));
+                } else if (mapped) {
+                    counter.loadMapped(files.get(i));
+                } else {
+                    counter.load(files.get(i));
+                }
+            }
+            if (snapshot != null) {
+                // counts from earlier runs; the files above are only the newly added ones
+                counter.loadSnapshot(snapshot);
+            }
+            if (cache != null) {
+                counter.saveCached(cache, cacheKey);
+            }
+        }
+        if (save != null) {
+            counter.saveSnapshot(save);
+        }
+        if (approx > 0) {
+            // kept off stdout so the listings stay the same shape
+            System.err.println(counter.approximate.report());
+        }
         //loads the words of a given textfile into an array
         if (args[0].equals("frequency")) {
-            counter.frequency();
+            counter.list(false, out, format);
         }
 
         else if(args[0].equals("alphabetical")){
-            counter.alphabetical();
+            counter.list(true, out, format);
         }
-        else if(args[0].equals("cloud")) {
-            // checks for index value of "." in args[1]
-            int endIndex = args[1].indexOf(".");
-            // retrieves name of args[1]
+        else if(cloud) {
+            // the cloud is named after the (first) text file, or else the snapshot
+            String source = files.isEmpty() ? snapshot : files.get(0);
+            // checks for index value of "." in source
+            int endIndex = source.indexOf(".");
+            // retrieves name of source
 
-            String Name = args[1].substring(0, endIndex);
+            String Name = endIndex < 0 ? source : source.substring(0, endIndex);
 
 
             // creates html name
@@ -146,7 +737,8 @@ public class WordCounter{
 
 
             // calls Cloud on counter
-            counter.cloud(Integer.parseInt(args[2]), counter.cloudFrequency(),Name, htmlName);
+            int size = Integer.parseInt(args[args.length - 1]);
+            counter.cloud(size, counter.cloudFrequency(size),Name, htmlName);
 
         }
     }
@@ -0,0 +1,131 @@
+import java.io.*;
+import java.util.Arrays;
+import java.util.function.Consumer;
+/**
+ * Splits text into lowercase words in a single pass over the characters.
+ * A word is a run of letters a-z (upper case letters are folded as they are
+ * read); every other character separates words. This gives the same words as
+ * lower-casing each line, replacing [^a-zA-Z] with spaces and splitting on
+ * whitespace, without building the intermediate lines and arrays.
+ *
+ * Further normalization is done by a chain of TokenFilter stages, fused into
+ * the same pass: when a word ends, each stage rewrites it in the word buffer
+ * in turn, and a String is only made if the word survives every stage. The
+ * tokenizer can also keep apostrophes that stand between two letters (' or
+ * the typographic \u2019), for the apostrophes stage to deal with.
+ */
+public class WordTokenizer {
+    // reused between calls: the block of text being scanned and the word being built
+    private char[] buffer = new char[8192];
+    private char[] word = new char[64];
+    private final boolean keepApostrophes;
+    private final TokenFilter[] filters;
+
+    /**
+     * creates a tokenizer that only splits and lower-cases
+     */
+    public WordTokenizer() {
+        this(false);
+    }
+
+    /**
+     * @param keepApostrophes true to keep an apostrophe between two letters as part of the word
+     * @param filters the stages every word goes through, in order
+     */
+    public WordTokenizer(boolean keepApostrophes, TokenFilter... filters) {
+        this.keepApostrophes = keepApostrophes;
+        this.filters = filters;
+    }
+
+    /**
+     * Builds a tokenizer from a comma-separated list of stages (see TokenFilter);
+     * apostrophes are kept in words when the list has an apostrophes stage.
+     *
+     * @param spec the stage names, e.g. "apostrophes,stop,stem,minlength=3"
+     * @param stopWords the stop list for the stop stage
+     * @return the tokenizer
+     * @throws IllegalArgumentException if a stage name is not known
+     */
+    public static WordTokenizer fromSpec(String spec, StopWords stopWords) {
+        boolean apostrophes = Arrays.asList(spec.replace(" ", "").split(",")).contains("apostrophes");
+        return new WordTokenizer(apostrophes, TokenFilter.parse(spec, stopWords));
+    }
+
+    /**
+     * Reads all of in and hands every word to sink as soon as it ends.
+     * Only one block of text is held in memory at a time.
+     *
+     * @param in the text to split into words (not closed by this method)
+     * @param sink receives each word in the order it appears
+     * @throws IOException if reading fails
+     */
+    public void tokenize(Reader in, Consumer<String> sink) throws IOException {
+        int length = 0;
+        // an apostrophe after a letter, kept only if another letter follows
+        boolean apostrophe = false;
+        int read;
+        while ((read = in.read(buffer, 0, buffer.length)) != -1) {
+            for (int i = 0; i < read; i++) {
+                char c = fold(buffer[i]);
+                if (c != 0) {
+                    // letter: add it to the current word
+                    if (length + 2 > word.length) {
+                        char[] bigger = new char[word.length * 2];
+                        System.arraycopy(word, 0, bigger, 0, length);
+                        word = bigger;
+                    }
+                    if (apostrophe) {
+                        word[length++] = '\'';
+                        apostrophe = false;
+                    }
+                    word[length++] = c;
+                } else if (keepApostrophes && length > 0 && !apostrophe
+                        && (buffer[i] == '\'' || buffer[i] == '\u2019')) {
+                    apostrophe = true;
+                } else if (length > 0) {
+                    // separator: the current word (if any) is finished
+                    emit(length, sink);
+                    length = 0;
+                    apostrophe = false;
+                }
+            }
+        }
+        if (length > 0) {
+            emit(length, sink);
+        }
+    }
+
+    /**
+     * Runs the finished word word[0, length) through the filters, and hands it to
+     * sink if it is still there afterwards.
+     */
+    private void emit(int length, Consumer<String> sink) {
+        for (int f = 0; f < filters.length && length > 0; f++) {
+            length = filters[f].apply(word, length);
+        }
+        if (length > 0) {
+            sink.accept(new String(word, 0, length));
+        }
+    }
+
+    /**
+     * Returns the lowercase letter for c, or 0 if c is not part of a word.
+     *
+     * @param c a character of the text
+     * @return c folded into a-z, or 0 for a separator
+     */
+    static char fold(char c) {
+        if (c >= 'a' && c <= 'z') {
+            return c;
+        } else if (c >= 'A' && c <= 'Z') {
+            return (char) (c + ('a' - 'A'));
+        } else if (c >= 128) {
+            // a few non-ASCII letters (such as the Kelvin sign) lower-case into a-z
+            char lower = Character.toLowerCase(c);
+            if (lower >= 'a' && lower <= 'z') {
+                return lower;
+            }
+        }
+        return 0;
+    }
+}